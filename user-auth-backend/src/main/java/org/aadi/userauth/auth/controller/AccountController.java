@@ -17,6 +17,8 @@ import org.springframework.web.server.ResponseStatusException;
 import jakarta.transaction.Transactional;
 import jakarta.servlet.http.HttpServletResponse;
 import org.aadi.userauth.auth.service.CookieService;
+import org.aadi.userauth.security.PrincipalCache;
+import org.aadi.userauth.security.TokenEpochRegistry;
 
 import java.security.Principal;
 import java.util.Map;
@@ -32,6 +34,8 @@ public class AccountController {
     private final UserRepository userRepository;
     private final RefreshTokenRepository refreshTokenRepository;
     private final CookieService cookieService;
+    private final TokenEpochRegistry tokenEpochs;
+    private final PrincipalCache principalCache;
 
     /**
      * Permanently delete the current user account together with its refresh tokens.
@@ -52,6 +56,8 @@ public class AccountController {
 
         // Delete user
         userRepository.delete(Objects.requireNonNull(user));
+        tokenEpochs.advance(user.getId());
+        principalCache.invalidate(user);
 
         SecurityContextHolder.clearContext();
 
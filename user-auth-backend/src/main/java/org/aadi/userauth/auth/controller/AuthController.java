@@ -2,13 +2,20 @@ package org.aadi.userauth.auth.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.aadi.userauth.auth.dto.*;
-import org.aadi.userauth.auth.model.RefreshToken;
 import org.aadi.userauth.auth.model.User;
-import org.aadi.userauth.auth.repository.RefreshTokenRepository;
 import org.aadi.userauth.auth.repository.UserRepository;
 import org.aadi.userauth.auth.service.AuthService;
 import org.aadi.userauth.auth.service.CookieService;
+import org.aadi.userauth.auth.service.EmailAvailabilityLimiter;
+import org.aadi.userauth.auth.service.RefreshTokenService;
+import org.aadi.userauth.security.AccessTokenRevocationList;
+import org.aadi.userauth.security.AuthenticatedUser;
+import org.aadi.userauth.security.CachedPrincipal;
 import org.aadi.userauth.security.JwtService;
+import org.aadi.userauth.security.PasswordHashingSaturatedException;
+import org.aadi.userauth.security.PrincipalCache;
+import org.aadi.userauth.security.TokenEpochRegistry;
+import org.aadi.userauth.security.VerifiedToken;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,10 +28,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.CredentialsExpiredException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -32,7 +39,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
-import java.time.Instant;
 import java.util.*;
 
 @RestController
@@ -43,11 +49,15 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenService refreshTokenService;
     private final JwtService jwtService;
     private final AuthService authService;
+    private final EmailAvailabilityLimiter emailAvailabilityLimiter;
     private final CookieService cookieService;
     private final PasswordEncoder passwordEncoder;
+    private final TokenEpochRegistry tokenEpochs;
+    private final PrincipalCache principalCache;
+    private final AccessTokenRevocationList revocations;
 
     @PostMapping("/register")
     public ResponseEntity<RegisterResponse> register(@Valid @RequestBody RegisterRequest request) {
@@ -55,31 +65,42 @@ public class AuthController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Lets the signup form check an address before submitting; unregistered addresses rarely reach the database.
+     * Checks are limited per client address, since each one tells the caller whether an address is registered.
+     * Behind a proxy the remote address is the forwarded client's, see {@code server.forward-headers-strategy}.
+     */
+    @GetMapping("/email-available")
+    public ResponseEntity<Map<String, Boolean>> emailAvailable(@RequestParam String email, HttpServletRequest request) {
+        if (email.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email is required");
+        }
+        if (!emailAvailabilityLimiter.tryAcquire(request.getRemoteAddr())) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many email checks, please retry in a minute");
+        }
+        return ResponseEntity.ok(Map.of("available", authService.isEmailAvailable(email)));
+    }
+
     @PostMapping("/login")
     public ResponseEntity<TokenResponse> login(@Valid @RequestBody LoginRequest request, HttpServletResponse response) {
 
         Authentication authentication = authenticate(request);
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        User user = userRepository.findByEmail(request.email())
-                .orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
+        // The provider already loaded the user (with roles) to check the password; reuse that entity
+        if (!(authentication.getPrincipal() instanceof AuthenticatedUser principal)) {
+            throw new BadCredentialsException("Invalid credentials");
+        }
+        User user = principal.getUser();
         if (user.getPassword() == null) {
             throw new BadCredentialsException("Password login is not available for this account");
         }
         if (!user.isEnabled()) {
             throw new DisabledException("User is disabled");
         }
-        String jti = UUID.randomUUID().toString();
-        RefreshToken rt = RefreshToken.builder()
-                .jti(jti)
-                .user(user)
-                .createdAt(Instant.now())
-                .expiresAt(Instant.now().plusSeconds(jwtService.getRefreshTtlSeconds()))
-                .revoked(false)
-                .build();
-        refreshTokenRepository.save(Objects.requireNonNull(rt));
-
+        // Only now that the password matched: warm the cache so the bearer requests that follow skip the users query
+        principalCache.put(user);
+        String refreshToken = refreshTokenService.issue(user);
         String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = jwtService.generateRefreshToken(user, jti);
 
         // Use CookieUtil (same behavior)
         cookieService.attachRefreshCookie(response, refreshToken, (int) jwtService.getRefreshTtlSeconds());
@@ -97,6 +118,12 @@ public class AuthController {
             return authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.email(), request.password()));
         } catch (Exception e) {
+            // Saturation is not a credentials problem; surface it as 429 so clients back off
+            for (Throwable t = e; t != null; t = t.getCause()) {
+                if (t instanceof PasswordHashingSaturatedException saturated) {
+                    throw saturated;
+                }
+            }
             throw new BadCredentialsException("Invalid username or password !!");
         }
     }
@@ -107,44 +134,17 @@ public class AuthController {
             @RequestBody(required = false) RefreshTokenRequest body,
             HttpServletRequest request,
             HttpServletResponse response) {
-        String token = readRefreshTokenFromRequest(body, request)
+        RefreshTokenService.PresentedToken token = readRefreshTokenFromRequest(body, request)
                 .orElseThrow(() -> new BadCredentialsException("Refresh token missing"));
 
-        if (!jwtService.isRefreshToken(token)) {
-            throw new BadCredentialsException("Invalid token type");
-        }
-
-        String jti = jwtService.getJti(token);
-        UUID userId = jwtService.getUserId(token);
-
-        RefreshToken stored = refreshTokenRepository.findByJti(jti)
-                .orElseThrow(() -> new BadCredentialsException("Refresh token not recognized"));
+        // One statement decides which of several concurrent refreshes wins; no row is read first
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(token);
+        CachedPrincipal principal = principalCache.findById(rotation.userId())
+                .filter(CachedPrincipal::enabled)
+                .orElseThrow(() -> new DisabledException("User is disabled"));
 
-        if (stored.isRevoked() || stored.getExpiresAt().isBefore(Instant.now())) {
-            throw new CredentialsExpiredException("Refresh token expired or revoked");
-        }
-        if (!stored.getUser().getId().equals(userId)) {
-            throw new BadCredentialsException("Token subject mismatch");
-        }
-
-        // Rotate
-        stored.setRevoked(true);
-        String newJti = UUID.randomUUID().toString();
-        stored.setReplacedByToken(newJti);
-        refreshTokenRepository.save(Objects.requireNonNull(stored));
-
-        User user = stored.getUser();
-        RefreshToken newRt = RefreshToken.builder()
-                .jti(newJti)
-                .user(user)
-                .createdAt(Instant.now())
-                .expiresAt(Instant.now().plusSeconds(jwtService.getRefreshTtlSeconds()))
-                .revoked(false)
-                .build();
-        refreshTokenRepository.save(Objects.requireNonNull(newRt));
-
-        String newAccess = jwtService.generateAccessToken(user);
-        String newRefresh = jwtService.generateRefreshToken(user, newJti);
+        String newAccess = jwtService.generateAccessToken(principal);
+        String newRefresh = rotation.refreshToken();
 
         // Use CookieUtil (same behavior)
         cookieService.attachRefreshCookie(response, newRefresh, (int) jwtService.getRefreshTtlSeconds());
@@ -157,18 +157,22 @@ public class AuthController {
 
     @PostMapping("/logout")
     public ResponseEntity<Void> logout(HttpServletRequest request, HttpServletResponse response) {
-        readRefreshTokenFromRequest(null, request).ifPresent(token -> {
+        try {
+            readRefreshTokenFromRequest(null, request).ifPresent(refreshTokenService::revoke);
+        } catch (JwtException | AuthenticationException ignored) {
+        }
+
+        // Also stop the access token that came with the request from working until it expires
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.regionMatches(true, 0, "Bearer ", 0, 7)) {
             try {
-                if (jwtService.isRefreshToken(token)) {
-                    String jti = jwtService.getJti(token);
-                    refreshTokenRepository.findByJti(jti).ifPresent(rt -> {
-                        rt.setRevoked(true);
-                        refreshTokenRepository.save(Objects.requireNonNull(rt));
-                    });
+                VerifiedToken access = jwtService.verify(authHeader.substring(7).trim());
+                if (access.isAccessToken()) {
+                    revocations.revoke(access.jti(), access.expiresAt());
                 }
             } catch (JwtException ignored) {
             }
-        });
+        }
 
         // Use CookieUtil (same behavior)
         cookieService.clearRefreshCookie(response);
@@ -177,7 +181,12 @@ public class AuthController {
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
-    private Optional<String> readRefreshTokenFromRequest(RefreshTokenRequest body, HttpServletRequest request) {
+    /**
+     * Locates the refresh token on the request and decodes it once (opaque tokens are only hashed). Tokens taken
+     * from the cookie, body or X-Refresh-Token header must decode; a bearer header is only considered when it
+     * carries a refresh token.
+     */
+    private Optional<RefreshTokenService.PresentedToken> readRefreshTokenFromRequest(RefreshTokenRequest body, HttpServletRequest request) {
         // 1) Prefer secure HttpOnly cookie
         if (request.getCookies() != null) {
             Optional<String> fromCookie = Arrays.stream(request.getCookies())
@@ -186,19 +195,19 @@ public class AuthController {
                     .filter(v -> v != null && !v.isBlank())
                     .findFirst();
             if (fromCookie.isPresent()) {
-                return fromCookie;
+                return fromCookie.map(refreshTokenService::decode);
             }
         }
 
         // 2) Body
         if (body != null && body.refreshToken() != null && !body.refreshToken().isBlank()) {
-            return Optional.of(body.refreshToken().trim());
+            return Optional.of(refreshTokenService.decode(body.refreshToken().trim()));
         }
 
         // 3) Custom header
         String refreshHeader = request.getHeader("X-Refresh-Token");
         if (refreshHeader != null && !refreshHeader.isBlank()) {
-            return Optional.of(refreshHeader.trim());
+            return Optional.of(refreshTokenService.decode(refreshHeader.trim()));
         }
 
         // 4) Authorization: Bearer <token> (only if actually refresh)
@@ -207,9 +216,7 @@ public class AuthController {
             String candidate = authHeader.substring(7).trim();
             if (!candidate.isEmpty()) {
                 try {
-                    if (jwtService.isRefreshToken(candidate)) {
-                        return Optional.of(candidate);
-                    }
+                    return Optional.of(refreshTokenService.decode(candidate));
                 } catch (Exception ignored) {
                 }
             }
@@ -255,6 +262,8 @@ public class AuthController {
         } catch (ResponseStatusException e) {
             return ResponseEntity.status(e.getStatusCode())
                     .body(Map.of("message", e.getReason()));
+        } catch (PasswordHashingSaturatedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error resetting password for email: {}", request.email(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -289,6 +298,8 @@ public class AuthController {
         }
         user.setPassword(passwordEncoder.encode(request.newPassword()));
         userRepository.saveAndFlush(user);
+        tokenEpochs.advance(user.getId());
+        principalCache.invalidate(user);
         log.info("Password updated for user: {}", user.getEmail());
         return ResponseEntity.ok().build();
     }
@@ -0,0 +1,34 @@
+package org.aadi.userauth.auth.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.aadi.userauth.security.SigningKeyRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the access token verification keys so resource servers can validate tokens locally.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final SigningKeyRing signingKeys;
+
+    /** Must stay below the rotation interval, because the next key is published exactly one rotation ahead. */
+    @Value("${security.jwt.signing.jwks-max-age-seconds:3600}")
+    private long jwksMaxAgeSeconds;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(jwksMaxAgeSeconds)).cachePublic())
+                .body(Map.of("keys", signingKeys.publicJwks()));
+    }
+}
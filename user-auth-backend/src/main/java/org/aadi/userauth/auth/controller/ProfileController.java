@@ -6,6 +6,7 @@ import org.aadi.userauth.auth.dto.UpdateProfileRequest;
 import org.aadi.userauth.auth.dto.UserDto;
 import org.aadi.userauth.auth.model.User;
 import org.aadi.userauth.auth.repository.UserRepository;
+import org.aadi.userauth.security.PrincipalCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -32,6 +33,7 @@ public class ProfileController {
     private static final Logger log = LoggerFactory.getLogger(ProfileController.class);
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @PutMapping("/update-user-profile")
     public ResponseEntity<UserDto> updateUserProfile(@Valid @RequestBody UpdateProfileRequest request,
@@ -52,6 +54,7 @@ public class ProfileController {
             user.setMobile(request.mobile().trim());
         }
         userRepository.save(Objects.requireNonNull(user));
+        principalCache.invalidate(user);
 
         UserDto dto = new UserDto(
                 user.getName(),
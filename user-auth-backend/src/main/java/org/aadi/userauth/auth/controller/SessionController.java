@@ -0,0 +1,72 @@
+package org.aadi.userauth.auth.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.aadi.userauth.auth.dto.SessionPageResponse;
+import org.aadi.userauth.auth.service.RefreshTokenService;
+import org.aadi.userauth.security.CachedPrincipal;
+import org.aadi.userauth.security.PrincipalCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * Lists and revokes live sessions (refresh tokens), for the current user and, with the ADMIN role, for any user.
+ * Listings are keyset-paginated: pass the {@code nextCursor} of one page as {@code cursor} to get the next.
+ */
+@RestController
+@RequestMapping("/api/v1/auth/sessions")
+@RequiredArgsConstructor
+public class SessionController {
+
+    private final RefreshTokenService refreshTokenService;
+    private final PrincipalCache principalCache;
+
+    @GetMapping
+    public SessionPageResponse mySessions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Principal principal) {
+        return refreshTokenService.listSessions(currentUserId(principal), cursor, limit);
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<Void> revokeMySession(@PathVariable UUID sessionId, Principal principal) {
+        return revoke(currentUserId(principal), sessionId);
+    }
+
+    @GetMapping("/users/{userId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public SessionPageResponse userSessions(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return refreshTokenService.listSessions(userId, cursor, limit);
+    }
+
+    @DeleteMapping("/users/{userId}/{sessionId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> revokeUserSession(@PathVariable UUID userId, @PathVariable UUID sessionId) {
+        return revoke(userId, sessionId);
+    }
+
+    private ResponseEntity<Void> revoke(UUID userId, UUID sessionId) {
+        if (!refreshTokenService.revokeSession(userId, sessionId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private UUID currentUserId(Principal principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
+        return principalCache.findByEmail(principal.getName())
+                .map(CachedPrincipal::id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated"));
+    }
+}
@@ -0,0 +1,54 @@
+package org.aadi.userauth.auth.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.aadi.userauth.auth.service.UserImportService;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Admin-only bulk import of users. The body is streamed, never buffered: post NDJSON
+ * ({@code application/x-ndjson}, one {@code UserImportRow} object per line) or CSV ({@code text/csv}, with a
+ * header naming the columns), e.g. {@code curl -H 'Content-Type: text/csv' --data-binary @users.csv ...}.
+ * The response is an NDJSON stream of per-row errors and progress, ending with a summary line.
+ */
+@RestController
+@RequestMapping("/api/v1/auth/users")
+@RequiredArgsConstructor
+public class UserImportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping(value = "/import", consumes = {NDJSON, "text/csv"}, produces = NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? UserImportService.Format.CSV : UserImportService.Format.NDJSON;
+        response.setContentType(NDJSON);
+        ServletOutputStream out = response.getOutputStream();
+        userImportService.importUsers(request.getInputStream(), format, event -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(event));
+                out.write('\n');
+                if (!"error".equals(event.type())) {
+                    out.flush(); // one flush per batch keeps the client's progress current
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package org.aadi.userauth.auth.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One live session, i.e. the current refresh token of a login. {@code id} is the session id, which stays the
+ * same across rotations and is what the revoke endpoints take. {@code lastRotatedAt} is when the current token
+ * was issued; {@code startedAt} is when the login that began its rotation chain happened.
+ */
+public record SessionDto(
+        UUID id,
+        Instant startedAt,
+        Instant lastRotatedAt,
+        Instant expiresAt
+) {
+
+}
@@ -0,0 +1,11 @@
+package org.aadi.userauth.auth.dto;
+
+import java.util.List;
+
+/** A page of sessions, newest first. Pass {@code nextCursor} back to fetch the next page; null on the last one. */
+public record SessionPageResponse(
+        List<SessionDto> sessions,
+        String nextCursor
+) {
+
+}
@@ -0,0 +1,26 @@
+package org.aadi.userauth.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of the NDJSON stream returned by a bulk import: a per-row {@code error}, a {@code progress} report
+ * after every batch, and a final {@code summary}, or {@code aborted} with an {@code error} if the database failed.
+ * Counts are cumulative; {@code line} is 1-based in the input.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserImportEvent(
+        String type,
+        Long line,
+        String email,
+        String error,
+        Long read,
+        Long imported,
+        Long skipped,
+        Long failed,
+        Double rowsPerSecond
+) {
+
+    public static UserImportEvent error(long line, String email, String error) {
+        return new UserImportEvent("error", line, email, error, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,15 @@
+package org.aadi.userauth.auth.dto;
+
+/**
+ * One account in a bulk import file. {@code password} is either a raw password, which is hashed on import,
+ * or an already encoded {@code {bcrypt}...} / {@code {argon2}...} value, which is stored as is.
+ */
+public record UserImportRow(
+        String email,
+        String name,
+        String password,
+        String mobile,
+        String image
+) {
+
+}
@@ -0,0 +1,52 @@
+package org.aadi.userauth.auth.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A persisted ES256 access-token signing key, shared by every instance so that all of them sign with the same
+ * active key and publish the same JWKS. The private key is stored AES-GCM sealed with a key derived from
+ * {@code security.jwt.secret}; see {@code SigningKeyRing}.
+ */
+@Entity
+@Table(name = "jwt_signing_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JwtSigningKey {
+
+    @Id
+    @Column(length = 64)
+    private String kid;
+
+    /** X.509 SubjectPublicKeyInfo encoding. */
+    @Column(nullable = false)
+    private byte[] publicKey;
+
+    /** IV followed by the AES-GCM sealed PKCS#8 encoding. */
+    @Column(nullable = false)
+    private byte[] sealedPrivateKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    private Instant activatedAt;
+
+    /** Set when the key stops signing; the key is deleted once every token it signed has expired. */
+    private Instant retireAt;
+
+    public enum Status {
+        /** Published but not signing yet, so cached JWKS documents know it before it is used. */
+        NEXT,
+        ACTIVE,
+        RETIRED
+    }
+}
@@ -6,10 +6,13 @@ import lombok.*;
 import java.time.Instant;
 import java.util.UUID;
 
+// The migrations in db/migration also make idx_rt_user_created partial (WHERE NOT revoked) and declare the partial
+// idx_rt_revoked for the purge, which @Index cannot express
 @Entity
 @Table(name = "refresh_tokens", indexes = {
         @Index(name = "idx_rt_jti", columnList = "jti", unique = true),
-        @Index(name = "idx_rt_user", columnList = "user_id")
+        @Index(name = "idx_rt_user_created", columnList = "user_id, createdAt DESC, sessionId DESC"),
+        @Index(name = "idx_rt_expiry", columnList = "expiresAt")
 })
 @Getter
 @Setter
@@ -22,22 +25,37 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @Column(nullable = false, unique = true, updatable = false, length = 64)
-    private String jti;
+    // Stored as a native uuid (16 bytes); uniqueness comes from idx_rt_jti
+    @Column(nullable = false, updatable = false)
+    private UUID jti;
+
+    // Identifies the login for its whole rotation chain: generated by the column default on login and copied
+    // to every successor by the rotate statement. Session listing and revocation use it, not the row id
+    @Column(nullable = false, insertable = false, updatable = false)
+    private UUID sessionId;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false, updatable = false)
     private User user;
 
-    @Column(nullable = false, updatable = false)
+    // Left to the column default, now(), like the rotate statement does, so every row is stamped by the database
+    // clock and the created_at order used by the session cap and listings is consistent across both paths
+    @Column(nullable = false, insertable = false, updatable = false)
     private Instant createdAt;
 
+    // createdAt of the first token in this rotation chain, i.e. when the session was started; defaults to now()
+    @Column(insertable = false, updatable = false)
+    private Instant sessionStartedAt;
+
     @Column(nullable = false)
     private Instant expiresAt;
 
     @Column(nullable = false)
     private boolean revoked;
 
+    // When the token was rotated or revoked; expires_at is never changed, it is the partition key
+    private Instant revokedAt;
+
     // jti of next token when rotated
-    private String replacedByToken;
+    private UUID replacedByToken;
 }
@@ -0,0 +1,25 @@
+package org.aadi.userauth.auth.repository;
+
+import org.aadi.userauth.auth.model.JwtSigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+
+    /**
+     * Serialises key ring changes across instances until the surrounding transaction ends. A row lock would not
+     * do, because on first start there is no row to lock yet.
+     */
+    @Query(value = "SELECT true FROM pg_advisory_xact_lock(hashtext('jwt_signing_keys'))", nativeQuery = true)
+    boolean lockKeyRing();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM JwtSigningKey k WHERE k.retireAt < :now")
+    int deleteRetiredBefore(@Param("now") Instant now);
+}
@@ -3,9 +3,14 @@ package org.aadi.userauth.auth.repository;
 
 import org.aadi.userauth.auth.model.Otp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
 import java.util.*;
 
 @Repository
@@ -14,6 +19,7 @@ public interface OtpRepository extends JpaRepository<Otp, UUID> {
 
     Optional<Otp> findTopByEmailAndTypeOrderByExpiresAtDesc(String email, Otp.OtpType type);
 
+    @Transactional
     void deleteByEmailAndType(String email, Otp.OtpType type); // Clean old OTPs
     // In OtpRepository.java
 
@@ -21,4 +27,41 @@ public interface OtpRepository extends JpaRepository<Otp, UUID> {
     List<Otp> findActiveOtpsByEmailAndType(@Param("email") String email, @Param("type") Otp.OtpType type);
 
     Optional<Otp> findByEmailAndCodeAndType(String email, String code, Otp.OtpType type);
+
+    List<Otp> findByUsedFalseAndExpiresAtAfter(Instant now);
+
+    /** Marks the code used if it is live and unused; returns 1 for exactly one of any concurrent callers. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Otp o SET o.used = true WHERE o.email = :email AND o.type = :type AND o.code = :code AND o.used = false AND o.expiresAt > CURRENT_TIMESTAMP")
+    int consume(@Param("email") String email, @Param("type") Otp.OtpType type, @Param("code") String code);
+
+    /** Deletes the identity's codes in the caller's transaction, e.g. after a reset that consumed its code. */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Otp o WHERE o.email = :email AND o.type = :type")
+    int invalidate(@Param("email") String email, @Param("type") Otp.OtpType type);
+
+    /**
+     * Deletes the identity's codes in a transaction of its own, so the delete stands even when the caller's
+     * transaction rolls back after a failed verification. Only for that lockout path: the new transaction waits
+     * on any row the caller's transaction has already locked, such as a code it just consumed.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("DELETE FROM Otp o WHERE o.email = :email AND o.type = :type")
+    int burn(@Param("email") String email, @Param("type") Otp.OtpType type);
+
+    /** Deletes up to {@code limit} of the oldest OTPs that expired before {@code cutoff}, via {@code idx_otp_expiry}. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM otps
+             WHERE id IN (SELECT id FROM otps
+                           WHERE expires_at < :cutoff
+                           ORDER BY expires_at
+                           LIMIT :limit
+                           FOR UPDATE SKIP LOCKED)
+            """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package org.aadi.userauth.auth.repository;
+
+import org.aadi.userauth.auth.model.OutboxEmail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, UUID> {
+
+    /**
+     * Claims up to {@code limit} due emails by pushing their next attempt to {@code leaseUntil}, and returns them.
+     * Rows claimed by another worker are skipped, and a claim left behind by a crashed worker becomes due again
+     * when its lease runs out.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE email_outbox
+               SET next_attempt_at = :leaseUntil, attempts = attempts + 1
+             WHERE id IN (SELECT id FROM email_outbox
+                           WHERE status = 'PENDING' AND next_attempt_at <= now()
+                           ORDER BY next_attempt_at
+                           LIMIT :limit
+                           FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<OutboxEmail> claimDue(@Param("leaseUntil") Instant leaseUntil, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.nextAttemptAt = :nextAttemptAt, e.lastError = :error WHERE e.id = :id")
+    int reschedule(@Param("id") UUID id, @Param("nextAttemptAt") Instant nextAttemptAt, @Param("error") String error);
+
+    /** Gives up on an email. Its body, which may carry a one-time code, is blanked; recipient and error are kept. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = org.aadi.userauth.auth.model.OutboxEmail.Status.FAILED, e.body = '', e.lastError = :error WHERE e.id = :id")
+    int markFailed(@Param("id") UUID id, @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEmail e WHERE e.id IN :ids")
+    int deleteDelivered(@Param("ids") List<UUID> ids);
+
+    /**
+     * Deletes up to {@code limit} of the FAILED rows whose last attempt was before {@code cutoff}, via
+     * {@code idx_outbox_due}: a failed row's {@code next_attempt_at} is the end of its last lease.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM email_outbox
+             WHERE id IN (SELECT id FROM email_outbox
+                           WHERE status = 'FAILED' AND next_attempt_at < :cutoff
+                           ORDER BY next_attempt_at
+                           LIMIT :limit
+                           FOR UPDATE SKIP LOCKED)
+            """, nativeQuery = true)
+    int deleteFailedBatch(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
@@ -1,12 +1,169 @@
 package org.aadi.userauth.auth.repository;
 
+import org.aadi.userauth.auth.dto.SessionDto;
 import org.aadi.userauth.auth.model.RefreshToken;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByJti(String jti);
-
     void deleteByUser(org.aadi.userauth.auth.model.User user);
+
+    /**
+     * Revokes a live token, links it to its successor and inserts the successor, all in one statement, and
+     * returns the owner's id. The successor inherits the session's {@code session_id} and
+     * {@code session_started_at}. Empty if the token is unknown, expired or already revoked (e.g. by a concurrent
+     * rotation). Like every revocation it stamps {@code revoked_at} and leaves {@code expires_at}, the partition
+     * key, alone, so a rotated row never moves between partitions under a concurrent rotation.
+     * <p>
+     * This and the other statements looking a token up by jti take the range its {@code expires_at} lies in, as
+     * the presented token states it, so only the partitions of that range are searched.
+     */
+    @Transactional
+    @Query(value = """
+            WITH rotated AS (
+                UPDATE refresh_tokens
+                   SET revoked = true, revoked_at = now(), replaced_by_token = :newJti
+                 WHERE jti = :jti AND expires_at BETWEEN :expiresFrom AND :expiresTo
+                   AND revoked = false AND expires_at > now()
+                RETURNING user_id, session_id, COALESCE(session_started_at, created_at) AS session_started_at
+            )
+            INSERT INTO refresh_tokens (id, jti, user_id, session_id, created_at, session_started_at, expires_at, revoked)
+            SELECT gen_random_uuid(), :newJti, user_id, session_id, now(), session_started_at, :expiresAt, false
+              FROM rotated
+            RETURNING user_id
+            """, nativeQuery = true)
+    Optional<UUID> rotate(@Param("jti") UUID jti, @Param("expiresFrom") Instant expiresFrom,
+                          @Param("expiresTo") Instant expiresTo, @Param("newJti") UUID newJti,
+                          @Param("expiresAt") Instant expiresAt);
+
+    /**
+     * Reuse detection: if {@code jti} names a token that was rotated more than {@code graceSeconds} ago, or whose
+     * successor has itself been rotated, revokes every live token of its session and returns how many. A token
+     * rotated within the grace window by a successor nobody has used yet is a lost race or a retried request,
+     * not a replay, and leaves the session alone. Rows revoked before {@code revoked_at} existed count as old.
+     * The successor was inserted when the token was revoked, so it expires after that; the bound lets the lookup
+     * skip partitions that had expired by then.
+     * Runs in its own transaction because the caller fails the refresh, which rolls its transaction back.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = """
+            UPDATE refresh_tokens r
+               SET revoked = true, revoked_at = now()
+              FROM (SELECT p.session_id
+                      FROM refresh_tokens p
+                     WHERE p.jti = :jti AND p.expires_at BETWEEN :expiresFrom AND :expiresTo
+                       AND p.replaced_by_token IS NOT NULL
+                       AND (p.revoked_at IS NULL
+                            OR p.revoked_at < now() - make_interval(secs => :graceSeconds)
+                            OR EXISTS (SELECT 1 FROM refresh_tokens s
+                                        WHERE s.jti = p.replaced_by_token AND s.expires_at > p.revoked_at
+                                          AND s.replaced_by_token IS NOT NULL))) reused
+             WHERE r.session_id = reused.session_id
+               AND r.revoked = false AND r.expires_at > now()
+            """, nativeQuery = true)
+    int revokeSessionOfReused(@Param("jti") UUID jti, @Param("expiresFrom") Instant expiresFrom,
+                              @Param("expiresTo") Instant expiresTo, @Param("graceSeconds") double graceSeconds);
+
+    /** First page of a user's live sessions, newest first, read from {@code idx_rt_user_created}. */
+    @Query("""
+            SELECT new org.aadi.userauth.auth.dto.SessionDto(r.sessionId, COALESCE(r.sessionStartedAt, r.createdAt), r.createdAt, r.expiresAt)
+              FROM RefreshToken r
+             WHERE r.user.id = :userId AND r.revoked = false AND r.expiresAt > CURRENT_TIMESTAMP
+             ORDER BY r.createdAt DESC, r.sessionId DESC
+            """)
+    List<SessionDto> findLiveSessions(@Param("userId") UUID userId, Limit limit);
+
+    /** Keyset continuation of {@link #findLiveSessions}: sessions strictly after the last one returned. */
+    @Query("""
+            SELECT new org.aadi.userauth.auth.dto.SessionDto(r.sessionId, COALESCE(r.sessionStartedAt, r.createdAt), r.createdAt, r.expiresAt)
+              FROM RefreshToken r
+             WHERE r.user.id = :userId AND r.revoked = false AND r.expiresAt > CURRENT_TIMESTAMP
+               AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.sessionId < :sessionId))
+             ORDER BY r.createdAt DESC, r.sessionId DESC
+            """)
+    List<SessionDto> findLiveSessionsAfter(@Param("userId") UUID userId, @Param("createdAt") Instant createdAt,
+                                           @Param("sessionId") UUID sessionId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE refresh_tokens
+               SET revoked = true, revoked_at = now()
+             WHERE session_id = :sessionId AND user_id = :userId AND revoked = false AND expires_at > now()
+            """, nativeQuery = true)
+    int revokeSession(@Param("userId") UUID userId, @Param("sessionId") UUID sessionId);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE refresh_tokens
+               SET revoked = true, revoked_at = now()
+             WHERE jti = :jti AND expires_at BETWEEN :expiresFrom AND :expiresTo
+               AND revoked = false AND expires_at > now()
+            """, nativeQuery = true)
+    int revokeByJti(@Param("jti") UUID jti, @Param("expiresFrom") Instant expiresFrom,
+                    @Param("expiresTo") Instant expiresTo);
+
+    /**
+     * Revokes the user's live tokens beyond the {@code keep} most recently issued, at most {@code limit} per call.
+     * Ties on {@code created_at} are broken by {@code session_id}, as in {@link #findLiveSessions}, so the sessions
+     * revoked are the ones the listing shows last.
+     * Walks {@code idx_rt_user_created} newest-first, so the work is bounded by {@code keep + limit} index entries
+     * regardless of how many rows the user has.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE refresh_tokens
+               SET revoked = true, revoked_at = now()
+             WHERE id IN (SELECT id FROM refresh_tokens
+                           WHERE user_id = :userId AND revoked = false AND expires_at > now()
+                           ORDER BY created_at DESC, session_id DESC
+                           OFFSET :keep
+                           LIMIT :limit)
+            """, nativeQuery = true)
+    int revokeOldestBeyond(@Param("userId") UUID userId, @Param("keep") int keep, @Param("limit") int limit);
+
+    /**
+     * Deletes up to {@code limit} of the oldest rows that expired before {@code cutoff}, walking
+     * {@code idx_rt_expiry} from its low end. Rows locked by another node's purge are skipped, not waited on.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM refresh_tokens
+             WHERE id IN (SELECT id FROM refresh_tokens
+                           WHERE expires_at < :cutoff
+                           ORDER BY expires_at
+                           LIMIT :limit
+                           FOR UPDATE SKIP LOCKED)
+            """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    /**
+     * Deletes up to {@code limit} of the rows revoked longest before {@code cutoff}, walking the partial
+     * {@code idx_rt_revoked}. Revoked rows keep their expiry, so without this they would linger until it passes.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM refresh_tokens
+             WHERE id IN (SELECT id FROM refresh_tokens
+                           WHERE revoked_at < :cutoff
+                           ORDER BY revoked_at
+                           LIMIT :limit
+                           FOR UPDATE SKIP LOCKED)
+            """, nativeQuery = true)
+    int deleteRevokedBatch(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
 }
@@ -1,14 +1,27 @@
 package org.aadi.userauth.auth.repository;
 
+import jakarta.persistence.QueryHint;
 import org.aadi.userauth.auth.model.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
+    // Roles are EAGER; fetching them in the same statement avoids a second query per lookup
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // Read in fetch-size chunks rather than materialised; the caller must hold a read-only transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
 }
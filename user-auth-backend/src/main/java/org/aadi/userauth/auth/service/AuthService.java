@@ -6,10 +6,15 @@ import org.aadi.userauth.auth.model.Otp;
 import org.aadi.userauth.auth.model.Provider;
 import org.aadi.userauth.auth.model.User;
 import org.aadi.userauth.auth.repository.UserRepository;
+import org.aadi.userauth.security.PasswordHashingSaturatedException;
+import org.aadi.userauth.security.PrincipalCache;
+import org.aadi.userauth.security.TokenEpochRegistry;
+import org.aadi.userauth.security.password.PasswordPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -23,45 +28,21 @@ import java.util.Objects;
 @Slf4j
 public class AuthService {
 
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final OtpService otpService;
-
-    @Value("${app.password.min-length:8}")
-    private int minPasswordLength;
+    private final TokenEpochRegistry tokenEpochs;
+    private final PrincipalCache principalCache;
+    private final PasswordPolicy passwordPolicy;
+    private final RegisteredEmailFilter registeredEmails;
 
     /**
-     * Validates password according to security requirements
+     * Validates password according to the configured {@link PasswordPolicy} rules
      */
     public void validatePassword(String password) {
-        if (password == null || password.isBlank()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Password is required");
-        }
-        
-        if (password.length() < minPasswordLength) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
-                String.format("Password must be at least %d characters long", minPasswordLength));
-        }
-        
-        if (!password.matches(".*[A-Z].*")) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
-                "Password must contain at least one uppercase letter (A-Z)");
-        }
-        
-        if (!password.matches(".*[a-z].*")) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
-                "Password must contain at least one lowercase letter (a-z)");
-        }
-        
-        if (!password.matches(".*\\d.*")) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
-                "Password must contain at least one digit (0-9)");
-        }
-        
-        if (!password.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>\\/?].*")) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
-                "Password must contain at least one special character (!@#$%^&*()_+-=[]{};':\"\\|,.<>/?)");
-        }
+        passwordPolicy.validate(password);
     }
 
     public RegisterResponse register(RegisterRequest request) {
@@ -71,10 +52,6 @@ public class AuthService {
         if (request.getEmail() == null || request.getEmail().isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email is required");
         }
-        if (userRepository.existsByEmail(request.getEmail().trim().toLowerCase())) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Email already registered");
-        }
-
         // Validate password for non-OAuth users
         if (request.getPassword() != null && !request.getPassword().isBlank()) {
             validatePassword(request.getPassword());
@@ -94,13 +71,23 @@ public class AuthService {
                 .password(encoded) // null allowed for OAuth-only users
                 .image(request.getImage())
                 .mobile(request.getMobile())
-                .enabled(true)
+                .enabled(false) // Disabled until OTP verified
                 .build();
 
         User saved = Objects.requireNonNull(userRepository.save(Objects.requireNonNull(user)));
-        saved.setEnabled(false); // Disable until OTP verified
-        otpService.generateAndSendOtp(saved.getEmail(), Otp.OtpType.REGISTER);
-        userRepository.save(Objects.requireNonNull(saved));
+        otpService.generateAndSendFirstOtp(saved.getEmail(), Otp.OtpType.REGISTER);
+        try {
+            // User, OTP and outbox inserts go out at this one flush, as three single-row statements since Hibernate
+            // only batches inserts into the same table; a taken email surfaces as the unique violation
+            userRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // By SQLState: a failed JDBC batch surfaces without a constraint kind
+            if (e.getCause() instanceof ConstraintViolationException cve && UNIQUE_VIOLATION.equals(cve.getSQLState())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Email already registered");
+            }
+            throw e;
+        }
+        registeredEmails.add(saved.getEmail());
 
         return RegisterResponse.builder()
                 .id(saved.getId())
@@ -114,6 +101,13 @@ public class AuthService {
                 .build();
     }
 
+    /** Whether no account uses this email. Most unregistered emails are answered by the filter alone. */
+    @Transactional(readOnly = true)
+    public boolean isEmailAvailable(String email) {
+        return !registeredEmails.mightBeRegistered(email)
+                || !userRepository.existsByEmail(RegisteredEmailFilter.canonical(email));
+    }
+
     // Then, add new method for OTP verification
     public void verifyRegistrationOtp(String email, String otpCode) {
         if (!otpService.verifyOtp(email, otpCode, Otp.OtpType.REGISTER)) {
@@ -123,6 +117,7 @@ public class AuthService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
         user.setEnabled(true);
         userRepository.save(user);
+        principalCache.invalidate(user);
     }
 
     // In AuthService.java
@@ -130,7 +125,12 @@ public class AuthService {
     public void sendResetOtp(String email) {
         log.info("Attempting to send reset OTP to: {}", email);
         try {
-            // Always proceed to generate OTP to prevent user enumeration
+            // The response is the same either way, so this does not reveal whether the account exists; codes for
+            // unknown emails would only take room in the OTP store and send mail to strangers
+            if (isEmailAvailable(email)) {
+                log.info("No account for {}; no reset OTP sent", email);
+                return;
+            }
             otpService.generateAndSendOtp(email, Otp.OtpType.RESET);
             log.info("OTP generated and sent successfully to {}", email);
         } catch (Exception e) {
@@ -144,6 +144,9 @@ public class AuthService {
         log.info("Attempting to reset password for email: {}", email);
 
         try {
+            // Reject unacceptable passwords before the OTP is consumed
+            validatePassword(newPassword);
+
             // Verify OTP first
             log.debug("Verifying OTP for email: {}", email);
             if (!otpService.verifyOtp(email, otpCode, Otp.OtpType.RESET)) {
@@ -167,13 +170,15 @@ public class AuthService {
             log.debug("Updating password for user: {}", user.getId());
             user.setPassword(passwordEncoder.encode(newPassword));
             userRepository.save(user);
+            tokenEpochs.advance(user.getId());
+            principalCache.invalidate(user);
 
             // Invalidate the OTP after successful password reset
             otpService.invalidateOtp(email, otpCode, Otp.OtpType.RESET);
             log.info("Password successfully reset for email: {}", email);
 
-        } catch (ResponseStatusException e) {
-            throw e; // Re-throw ResponseStatusException as is
+        } catch (ResponseStatusException | PasswordHashingSaturatedException e) {
+            throw e; // Re-throw as is so the handler maps the status
         } catch (Exception e) {
             log.error("Unexpected error resetting password for email: " + email, e);
             throw new ResponseStatusException(
@@ -0,0 +1,41 @@
+package org.aadi.userauth.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Email availability checks per client address, counted in fixed one-minute windows. The endpoint answers
+ * without authentication, so this caps how fast one client can test addresses for registration.
+ * <p>
+ * Counts are per node, and behind a proxy the client address is only right when the forwarded headers are
+ * trusted ({@code server.forward-headers-strategy}).
+ */
+@Component
+public class EmailAvailabilityLimiter {
+
+    private final int maxPerMinute;
+    private final Cache<String, AtomicInteger> counts;
+
+    public EmailAvailabilityLimiter(
+            @Value("${app.email-filter.availability-checks-per-minute:30}") int maxPerMinute,
+            @Value("${app.email-filter.availability-clients.max-size:100000}") long maxSize
+    ) {
+        this.maxPerMinute = maxPerMinute;
+        // The window starts with a client's first check and ends a minute later, when its entry expires
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .build();
+    }
+
+    /** Counts a check from the client and returns false once it has used up its window. */
+    public boolean tryAcquire(String clientAddress) {
+        AtomicInteger count = counts.get(clientAddress, key -> new AtomicInteger());
+        return count.incrementAndGet() <= maxPerMinute;
+    }
+}
@@ -0,0 +1,151 @@
+package org.aadi.userauth.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aadi.userauth.auth.model.OutboxEmail;
+import org.aadi.userauth.auth.repository.OutboxEmailRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Delivers queued {@link OutboxEmail}s in batches.
+ * <p>
+ * Each batch is claimed in one short transaction, sent with no transaction or pooled connection held, and
+ * its outcome recorded afterwards. Delivered rows are deleted; failed ones are retried with exponential
+ * backoff and marked FAILED after {@code max-attempts}. Claims are leases, so several nodes can run the worker
+ * and an email claimed by a node that dies is picked up again.
+ */
+@Slf4j
+@Component
+public class EmailOutboxWorker {
+
+    private final OutboxEmailRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    public EmailOutboxWorker(
+            OutboxEmailRepository outboxRepository,
+            JavaMailSender mailSender,
+            MeterRegistry meterRegistry,
+            @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+            @Value("${app.mail.outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+            @Value("${app.mail.outbox.max-attempts:6}") int maxAttempts,
+            @Value("${app.mail.outbox.lease:PT2M}") Duration lease,
+            @Value("${app.mail.outbox.initial-backoff:PT10S}") Duration initialBackoff,
+            @Value("${app.mail.outbox.max-backoff:PT15M}") Duration maxBackoff
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.sent = Counter.builder("mail.outbox.sent").register(meterRegistry);
+        this.retried = Counter.builder("mail.outbox.retried").register(meterRegistry);
+        this.failed = Counter.builder("mail.outbox.failed").register(meterRegistry);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${app.mail.outbox.poll-interval:PT1S}",
+            initialDelayString = "${app.mail.outbox.poll-interval:PT1S}")
+    public void deliver() {
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<OutboxEmail> due;
+            try {
+                due = outboxRepository.claimDue(Instant.now().plus(lease), batchSize);
+            } catch (RuntimeException e) {
+                log.warn("Could not claim queued emails", e);
+                return;
+            }
+            if (due.isEmpty()) {
+                return;
+            }
+            send(due);
+            if (due.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private void send(List<OutboxEmail> emails) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[emails.size()];
+        for (int i = 0; i < messages.length; i++) {
+            OutboxEmail email = emails.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages[i] = message;
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        Exception batchFailure = null;
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                batchFailure = e;
+            }
+        } catch (RuntimeException e) {
+            batchFailure = e;
+        }
+
+        List<UUID> delivered = new ArrayList<>();
+        for (int i = 0; i < messages.length; i++) {
+            Exception failure = batchFailure != null ? batchFailure : failures.get(messages[i]);
+            if (failure == null) {
+                delivered.add(emails.get(i).getId());
+            } else {
+                recordFailure(emails.get(i), failure);
+            }
+        }
+        if (!delivered.isEmpty()) {
+            outboxRepository.deleteDelivered(delivered);
+            sent.increment(delivered.size());
+        }
+    }
+
+    private void recordFailure(OutboxEmail email, Exception failure) {
+        String error = truncate(String.valueOf(failure.getMessage()));
+        if (email.getAttempts() >= maxAttempts) {
+            outboxRepository.markFailed(email.getId(), error);
+            failed.increment();
+            log.error("Giving up on email {} to {} after {} attempts: {}", email.getId(), email.getRecipient(), email.getAttempts(), error);
+            return;
+        }
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(email.getAttempts() - 1, 20));
+        if (backoff.compareTo(maxBackoff) > 0) {
+            backoff = maxBackoff;
+        }
+        outboxRepository.reschedule(email.getId(), Instant.now().plus(backoff), error);
+        retried.increment();
+        log.warn("Email {} to {} failed (attempt {}), retrying in {}s: {}", email.getId(), email.getRecipient(), email.getAttempts(), backoff.toSeconds(), error);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
@@ -3,30 +3,36 @@ package org.aadi.userauth.auth.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
+import org.aadi.userauth.auth.model.OutboxEmail;
+import org.aadi.userauth.auth.repository.OutboxEmailRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Queues outgoing mail in the {@code email_outbox} table as part of the caller's transaction;
+ * {@link EmailOutboxWorker} delivers it. Request latency therefore never depends on the mail server,
+ * and a mail is only sent if the change that caused it commits.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
-    private final JavaMailSender mailSender;
+    private final OutboxEmailRepository outboxRepository;
 
-    @Async
+    @Transactional
     public void sendOtpEmail(String to, String otp, String purpose) {  // purpose: "Verify your registration" or "Reset your password"
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(to);
-            message.setSubject("User Auth App - " + purpose);
-            message.setText("Your OTP is: " + otp + "\nIt expires in 10 minutes.\nDo not share this code.");
-            
-            mailSender.send(message);
-            log.info("OTP email sent to {}", to);
-        } catch (Exception e) {
-            log.error("Failed to send OTP email to {}", to, e);
-            throw new RuntimeException("Email sending failed", e);
-        }
+        Instant now = Instant.now();
+        OutboxEmail email = OutboxEmail.builder()
+                .recipient(to)
+                .subject("User Auth App - " + purpose)
+                .body("Your OTP is: " + otp + "\nIt expires in 10 minutes.\nDo not share this code.")
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build();
+        outboxRepository.save(Objects.requireNonNull(email));
+        log.info("OTP email to {} queued", to);
     }
-}
\ No newline at end of file
+}
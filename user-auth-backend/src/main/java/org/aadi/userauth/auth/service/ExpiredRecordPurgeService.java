@@ -0,0 +1,132 @@
+package org.aadi.userauth.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aadi.userauth.auth.repository.OtpRepository;
+import org.aadi.userauth.auth.repository.OutboxEmailRepository;
+import org.aadi.userauth.auth.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.BiFunction;
+
+/**
+ * Deletes expired refresh tokens and OTPs in the background, and refresh tokens revoked more than
+ * {@code revoked-retention} ago. Emails the outbox gave up on are kept for {@code outbox-retention} so the failure
+ * can be investigated, then deleted.
+ * <p>
+ * A rotated token is recognised as replayed, and its session revoked, only while its row exists. Its signature
+ * stays valid until it expires, so {@code revoked-retention} defaults to the refresh token lifetime: no revoked
+ * row then outlives its expiry, this purge deletes nothing the expiry purge would not, and replays are caught for
+ * as long as the token could be presented. A shorter retention keeps {@code refresh_tokens} smaller (about one row
+ * per rotation per retention period instead of per lifetime), at the price that a stolen token replayed after it
+ * is merely rejected and leaves the session, possibly the thief's, alive.
+ * <p>
+ * Each table is drained oldest-first in chunks of {@code batch-size} rows. Every chunk is its own short
+ * transaction on one pooled connection, released before the pause between chunks, so the job never holds
+ * locks across chunks and never uses more than one connection. A run stops after {@code max-batches-per-run}
+ * chunks; the remainder is picked up by the next run.
+ * <p>
+ * When {@code refresh_tokens} is partitioned, its expired rows go away with their partition
+ * ({@link RefreshTokenPartitionManager}); only its revoked rows and OTPs are purged here.
+ */
+@Slf4j
+@Service
+public class ExpiredRecordPurgeService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final OtpRepository otpRepository;
+    private final OutboxEmailRepository outboxRepository;
+    private final boolean enabled;
+    private final boolean refreshTokensPartitioned;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final int maxBatchesPerRun;
+    private final Duration revokedRetention;
+    private final Duration outboxRetention;
+    private final Counter refreshTokensPurged;
+    private final Counter otpsPurged;
+    private final Counter outboxPurged;
+    private final Timer refreshTokenPurgeDuration;
+    private final Timer otpPurgeDuration;
+    private final Timer outboxPurgeDuration;
+
+    public ExpiredRecordPurgeService(
+            RefreshTokenRepository refreshTokenRepository,
+            OtpRepository otpRepository,
+            OutboxEmailRepository outboxRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.purge.enabled:true}") boolean enabled,
+            @Value("${app.purge.batch-size:1000}") int batchSize,
+            @Value("${app.purge.batch-pause:PT0.2S}") Duration batchPause,
+            @Value("${app.purge.max-batches-per-run:500}") int maxBatchesPerRun,
+            @Value("${app.purge.revoked-retention:PT${security.jwt.refresh-ttl-seconds:2592000}S}") Duration revokedRetention,
+            @Value("${app.purge.outbox-retention:P7D}") Duration outboxRetention,
+            @Value("${app.refresh-tokens.partitioning.enabled:false}") boolean refreshTokensPartitioned
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.otpRepository = otpRepository;
+        this.outboxRepository = outboxRepository;
+        this.enabled = enabled;
+        this.refreshTokensPartitioned = refreshTokensPartitioned;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.revokedRetention = revokedRetention;
+        this.outboxRetention = outboxRetention;
+        this.refreshTokensPurged = Counter.builder("purge.rows").tag("table", "refresh_tokens").register(meterRegistry);
+        this.otpsPurged = Counter.builder("purge.rows").tag("table", "otps").register(meterRegistry);
+        this.outboxPurged = Counter.builder("purge.rows").tag("table", "email_outbox").register(meterRegistry);
+        this.refreshTokenPurgeDuration = Timer.builder("purge.duration").tag("table", "refresh_tokens").register(meterRegistry);
+        this.otpPurgeDuration = Timer.builder("purge.duration").tag("table", "otps").register(meterRegistry);
+        this.outboxPurgeDuration = Timer.builder("purge.duration").tag("table", "email_outbox").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.purge.interval:PT15M}", initialDelayString = "${app.purge.initial-delay:PT1M}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        Instant cutoff = Instant.now();
+        if (!refreshTokensPartitioned) {
+            purge("expired refresh_tokens", refreshTokenRepository::deleteExpiredBatch, cutoff,
+                    refreshTokensPurged, refreshTokenPurgeDuration);
+        }
+        purge("revoked refresh_tokens", refreshTokenRepository::deleteRevokedBatch, cutoff.minus(revokedRetention),
+                refreshTokensPurged, refreshTokenPurgeDuration);
+        purge("expired otps", otpRepository::deleteExpiredBatch, cutoff, otpsPurged, otpPurgeDuration);
+        purge("failed email_outbox", outboxRepository::deleteFailedBatch, cutoff.minus(outboxRetention),
+                outboxPurged, outboxPurgeDuration);
+    }
+
+    private void purge(String rows, BiFunction<Instant, Integer, Integer> deleteBatch, Instant cutoff,
+                       Counter purged, Timer duration) {
+        long total = 0;
+        Timer.Sample sample = Timer.start();
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int deleted = deleteBatch.apply(cutoff, batchSize);
+                purged.increment(deleted);
+                total += deleted;
+                if (deleted < batchSize) {
+                    break;
+                }
+                Thread.sleep(batchPause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Purge of {} rows stopped after {} rows", rows, total, e);
+        } finally {
+            long nanos = sample.stop(duration);
+            if (total > 0) {
+                log.info("Purged {} {} rows in {} ms", total, rows, nanos / 1_000_000);
+            }
+        }
+    }
+}
@@ -2,7 +2,8 @@
 package org.aadi.userauth.auth.service;
 
 import org.aadi.userauth.auth.model.Otp;
-import org.aadi.userauth.auth.repository.OtpRepository;
+import org.aadi.userauth.auth.service.otp.OtpAttemptCounter;
+import org.aadi.userauth.auth.service.otp.OtpStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -12,36 +13,39 @@ import org.springframework.transaction.annotation.Transactional;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Objects;
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 @Slf4j
 public class OtpService {
-    private final OtpRepository otpRepository;
+    private final OtpStore otpStore;
     private final EmailService emailService;
+    private final OtpAttemptCounter attempts;
     private static final int OTP_LENGTH = 6;
     private static final int OTP_EXPIRY_MINUTES = 10;
 
     public String generateAndSendOtp(String email, Otp.OtpType type) {
-        // Clean old OTPs for this email/type
-        otpRepository.deleteByEmailAndType(email, type);
+        return generateAndSendOtp(email, type, true);
+    }
+
+    /** For an email that cannot have an earlier code, such as a user registered in this transaction. */
+    public String generateAndSendFirstOtp(String email, Otp.OtpType type) {
+        return generateAndSendOtp(email, type, false);
+    }
 
+    private String generateAndSendOtp(String email, Otp.OtpType type, boolean replaceEarlier) {
         // Generate OTP
         String otp = generateOtp();
         Instant expiresAt = Instant.now().plus(OTP_EXPIRY_MINUTES, ChronoUnit.MINUTES);
 
-        // Save OTP
-        Otp savedOtp = Otp.builder()
-                .email(email)
-                .code(otp)
-                .expiresAt(expiresAt)
-                .type(type)
-                .used(false)
-                .build();
-        otpRepository.save(Objects.requireNonNull(savedOtp));
+        // Save OTP, replacing any older one for this email/type
+        if (replaceEarlier) {
+            otpStore.save(email, type, otp, expiresAt);
+        } else {
+            otpStore.create(email, type, otp, expiresAt);
+        }
+        attempts.reset(email, type);
 
         // Send email
         String purpose = type == Otp.OtpType.REGISTER ? "Verify your email" : "Reset your password";
@@ -51,25 +55,20 @@ public class OtpService {
     }
 
     public boolean verifyOtp(String email, String code, Otp.OtpType type) {
-        log.info("Verifying OTP for email: {}, code: {}, type: {}", email, code, type);
-        Optional<Otp> otpOpt = otpRepository.findByEmailAndCodeAndTypeAndUsedFalse(email, code, type);
-        
-        if (otpOpt.isEmpty()) {
-            log.warn("No active OTP found for email: {} and type: {}", email, type);
+        log.info("Verifying OTP for email: {}, type: {}", email, type);
+        if (attempts.isLockedOut(email, type)) {
+            log.warn("Too many wrong OTPs for email: {} and type: {}; a new code is required", email, type);
             return false;
         }
-        
-        Otp otp = otpOpt.get();
-        log.info("Found OTP: id={}, email={}, expiresAt={}, used={}", 
-            otp.getId(), otp.getEmail(), otp.getExpiresAt(), otp.isUsed());
-        
-        if (otp.getExpiresAt().isBefore(Instant.now())) {
-            log.warn("OTP expired at {}", otp.getExpiresAt());
+        if (!otpStore.consume(email, type, code)) {
+            log.warn("No active OTP found for email: {} and type: {}", email, type);
+            if (attempts.recordFailure(email, type)) {
+                // Burn the code so it cannot be guessed on another node either
+                otpStore.burn(email, type);
+            }
             return false;
         }
-        
-        otp.setUsed(true);
-        otpRepository.save(otp);
+        attempts.reset(email, type);
         log.info("OTP verified and marked as used");
         return true;
     }
@@ -86,11 +85,6 @@ public class OtpService {
     @Transactional
 public void invalidateOtp(String email, String code, Otp.OtpType type) {
     log.debug("Invalidating OTP for email: {}, type: {}", email, type);
-    otpRepository.findByEmailAndCodeAndType(email, code, type)
-        .ifPresent(otp -> {
-            otp.setUsed(true);
-            otpRepository.save(otp);
-            log.debug("Marked OTP as used for email: {}", email);
-        });
+    otpStore.invalidate(email, type);
+}
 }
-}
\ No newline at end of file
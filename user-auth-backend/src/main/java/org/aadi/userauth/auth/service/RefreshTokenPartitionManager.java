@@ -0,0 +1,118 @@
+package org.aadi.userauth.auth.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the partitions of a {@code refresh_tokens} table range-partitioned by {@code expires_at}
+ * (see {@code db/refresh_tokens_partitioned.sql}).
+ * <p>
+ * New tokens expire one refresh TTL from now, so partitions are created ahead until they cover
+ * {@code now + refresh TTL + create-ahead}. A partition whose upper bound has passed only holds expired or
+ * revoked tokens and is dropped whole, which replaces row-by-row deletes and the vacuum work they cause.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.refresh-tokens.partitioning.enabled", havingValue = "true")
+public class RefreshTokenPartitionManager {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("refresh_tokens_(\\d{8})_(\\d{8})");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long refreshTtlSeconds;
+    private final boolean weekly;
+    private final int createAheadPartitions;
+
+    public RefreshTokenPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            @Value("${security.jwt.refresh-ttl-seconds:2592000}") long refreshTtlSeconds,
+            @Value("${app.refresh-tokens.partitioning.interval:DAILY}") String interval,
+            @Value("${app.refresh-tokens.partitioning.create-ahead:3}") int createAheadPartitions
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshTtlSeconds = refreshTtlSeconds;
+        this.weekly = switch (interval.toUpperCase()) {
+            case "DAILY" -> false;
+            case "WEEKLY" -> true;
+            default -> throw new IllegalStateException("app.refresh-tokens.partitioning.interval must be DAILY or WEEKLY");
+        };
+        this.createAheadPartitions = createAheadPartitions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${app.refresh-tokens.partitioning.maintenance-interval:PT1H}",
+            initialDelayString = "${app.refresh-tokens.partitioning.maintenance-interval:PT1H}")
+    public void maintain() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        List<Partition> partitions = existingPartitions();
+
+        for (Partition partition : partitions) {
+            if (!partition.to().isAfter(today)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.name());
+                log.info("Dropped expired refresh token partition {}", partition.name());
+            }
+        }
+
+        LocalDate coverUntil = today
+                .plusDays(refreshTtlSeconds / 86_400 + 1)
+                .plusDays((long) createAheadPartitions * (weekly ? 7 : 1));
+        LocalDate from = partitions.stream()
+                .map(Partition::to)
+                .max(Comparator.naturalOrder())
+                .filter(to -> to.isAfter(today))
+                .orElse(weekly ? today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : today);
+        while (from.isBefore(coverUntil)) {
+            LocalDate to = from.plusDays(weekly ? 7 : 1);
+            String name = "refresh_tokens_" + DAY.format(from) + "_" + DAY.format(to);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF refresh_tokens FOR VALUES FROM ('"
+                    + from + " 00:00:00+00') TO ('" + to + " 00:00:00+00')");
+            log.info("Created refresh token partition {}", name);
+            from = to;
+        }
+    }
+
+    private List<Partition> existingPartitions() {
+        List<String> names = jdbcTemplate.queryForList("""
+                SELECT c.relname
+                  FROM pg_inherits i
+                  JOIN pg_class c ON c.oid = i.inhrelid
+                  JOIN pg_class p ON p.oid = i.inhparent
+                 WHERE p.relname = 'refresh_tokens'
+                """, String.class);
+        List<Partition> partitions = new ArrayList<>();
+        for (String name : names) {
+            Matcher m = PARTITION_NAME.matcher(name);
+            if (m.matches()) {
+                partitions.add(new Partition(name, LocalDate.parse(m.group(1), DAY), LocalDate.parse(m.group(2), DAY)));
+            } else {
+                log.warn("Ignoring refresh token partition with unexpected name {}", name);
+            }
+        }
+        return partitions;
+    }
+
+    private record Partition(String name, LocalDate from, LocalDate to) {
+    }
+}
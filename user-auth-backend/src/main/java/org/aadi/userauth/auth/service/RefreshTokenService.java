@@ -0,0 +1,281 @@
+package org.aadi.userauth.auth.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aadi.userauth.auth.dto.SessionDto;
+import org.aadi.userauth.auth.dto.SessionPageResponse;
+import org.aadi.userauth.auth.model.RefreshToken;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.auth.repository.RefreshTokenRepository;
+import org.aadi.userauth.security.JwtService;
+import org.aadi.userauth.security.VerifiedToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Refresh tokens and the sessions behind them: issuing a token for a new session, rotating and revoking it,
+ * and listing a user's live sessions.
+ * <p>
+ * Tokens are either HMAC-signed JWTs or, with {@code security.jwt.refresh-token-format=opaque}, 256 random bits
+ * followed by the expiry in epoch seconds, in base64url. An opaque token is never stored; its row is keyed by a UUID
+ * made from the first 128 bits of its SHA-256, and it is recognised by the absence of JWT dots. Both formats are
+ * accepted whatever the setting, so switching formats does not log anyone out.
+ * <p>
+ * Every token carries the {@code expires_at} of its row, to the second: a JWT as {@code exp}, an opaque token in
+ * its last four bytes, which the digest covers, so altering them names no row. Lookups by jti restrict
+ * {@code expires_at} to a few seconds around it, which on the partitioned table probes one partition instead of
+ * all of them. Opaque tokens issued before the expiry was appended carry none and are looked up across one
+ * refresh TTL either side of now.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtService jwtService;
+
+    private static final int MAX_SESSION_PAGE_SIZE = 100;
+    private static final int OPAQUE_TOKEN_BYTES = 32;
+    private static final Pattern OPAQUE_TOKEN = Pattern.compile("[A-Za-z0-9_-]{48}");
+    private static final Pattern LEGACY_OPAQUE_TOKEN = Pattern.compile("[A-Za-z0-9_-]{43}");
+    /**
+     * Tolerance around a presented token's expiry. Rows written before tokens carried their exact expiry stored
+     * their own clock reading, up to a second or so away from the token's {@code exp}.
+     */
+    private static final Duration EXPIRY_SLACK = Duration.ofSeconds(2);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** {@code jwt} or {@code opaque}; the format of newly issued refresh tokens. */
+    @Value("${security.jwt.refresh-token-format:jwt}")
+    private String refreshTokenFormat;
+
+    /** Live sessions kept per user; issuing one more revokes the least recently rotated. 0 disables the cap. */
+    @Value("${app.sessions.max-per-user:10}")
+    private int maxSessionsPerUser;
+
+    /** How long a rotated token may be presented again before it counts as a replay that revokes the session. */
+    @Value("${app.sessions.reuse-grace:PT10S}")
+    private Duration reuseGrace;
+
+    /** Upper bound on sessions revoked by one cap check, so a single request never does unbounded work. */
+    @Value("${app.sessions.max-evictions-per-request:100}")
+    private int maxEvictionsPerRequest;
+
+    /** Starts a session for {@code user} and returns its refresh token. */
+    public String issue(User user) {
+        Instant expiresAt = nextExpiry();
+        NewToken token = newToken(user.getId(), expiresAt);
+        save(token.jti(), user, expiresAt);
+        enforceSessionCap(user.getId());
+        return token.value();
+    }
+
+    /**
+     * Checks the format of a presented refresh token and extracts what rotation needs. A JWT is verified once
+     * here and must be a refresh token; an opaque token is only hashed, its validity is decided by the database.
+     */
+    public PresentedToken decode(String token) {
+        if (token.indexOf('.') < 0) {
+            if (OPAQUE_TOKEN.matcher(token).matches()) {
+                long expiry = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token)).getInt(OPAQUE_TOKEN_BYTES) & 0xFFFFFFFFL;
+                return new PresentedToken(opaqueJti(token), null, Instant.ofEpochSecond(expiry));
+            }
+            if (LEGACY_OPAQUE_TOKEN.matcher(token).matches()) {
+                return new PresentedToken(opaqueJti(token), null, null);
+            }
+            throw new BadCredentialsException("Refresh token not recognized");
+        }
+        VerifiedToken verified = jwtService.verify(token);
+        if (!verified.isRefreshToken()) {
+            throw new BadCredentialsException("Invalid token type");
+        }
+        return new PresentedToken(parseJti(verified.jti()), verified.subject(), verified.expiresAt());
+    }
+
+    /**
+     * Revokes the presented token and stores its successor in a single statement. The UPDATE inside it only
+     * matches a live row, so of several concurrent rotations of the same token exactly one succeeds; the others
+     * see no row and fail. Any exception rolls the rotation back.
+     * <p>
+     * A token that was already rotated is presented again either by a racing or retrying client or by someone who
+     * stole it. Within {@code app.sessions.reuse-grace} of its rotation, and as long as its successor is unused,
+     * only this request fails. Otherwise it is treated as a replay and the whole session is revoked, including the
+     * successor the legitimate rotation handed out.
+     */
+    public Rotation rotate(PresentedToken presented) {
+        UUID userId = presented.subject();
+        Instant expiresAt = nextExpiry();
+        NewToken next = newToken(userId, expiresAt);
+        UUID owner = refreshTokenRepository.rotate(presented.jti(), expiresFrom(presented), expiresTo(presented),
+                next.jti(), expiresAt).orElse(null);
+        if (owner == null) {
+            int revoked = refreshTokenRepository.revokeSessionOfReused(presented.jti(),
+                    expiresFrom(presented), expiresTo(presented), reuseGrace.toMillis() / 1000.0);
+            if (revoked > 0) {
+                log.warn("Rotated refresh token presented again; revoked {} token(s) of its session", revoked);
+            }
+            throw new CredentialsExpiredException("Refresh token expired, revoked or not recognized");
+        }
+        if (userId != null && !owner.equals(userId)) {
+            throw new BadCredentialsException("Token subject mismatch");
+        }
+        enforceSessionCap(owner);
+        // An opaque token names no subject, so a JWT successor can only be signed once the owner is known
+        String value = next.value() != null ? next.value()
+                : jwtService.generateRefreshToken(owner, next.jti().toString(), expiresAt);
+        return new Rotation(owner, value);
+    }
+
+    /** Revokes the token if it is live; unknown tokens are ignored, as logout must always succeed. */
+    public void revoke(PresentedToken presented) {
+        refreshTokenRepository.revokeByJti(presented.jti(), expiresFrom(presented), expiresTo(presented));
+    }
+
+    /** Lists the user's live sessions, newest first, continuing after {@code cursor} when one is given. */
+    @Transactional(readOnly = true)
+    public SessionPageResponse listSessions(UUID userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_SESSION_PAGE_SIZE));
+        List<SessionDto> sessions;
+        if (cursor == null || cursor.isBlank()) {
+            sessions = refreshTokenRepository.findLiveSessions(userId, Limit.of(pageSize));
+        } else {
+            Cursor after = Cursor.decode(cursor);
+            sessions = refreshTokenRepository.findLiveSessionsAfter(userId, after.createdAt(), after.sessionId(), Limit.of(pageSize));
+        }
+        String nextCursor = sessions.size() < pageSize ? null : Cursor.after(sessions.get(sessions.size() - 1)).encode();
+        return new SessionPageResponse(sessions, nextCursor);
+    }
+
+    /** Revokes one of the user's live sessions; returns false if there is no such session. */
+    public boolean revokeSession(UUID userId, UUID sessionId) {
+        return refreshTokenRepository.revokeSession(userId, sessionId) > 0;
+    }
+
+    private void enforceSessionCap(UUID userId) {
+        if (maxSessionsPerUser <= 0) {
+            return;
+        }
+        // Make the row just inserted count towards the cap
+        refreshTokenRepository.flush();
+        refreshTokenRepository.revokeOldestBeyond(userId, maxSessionsPerUser, maxEvictionsPerRequest);
+    }
+
+    /** Expiry of a token issued now, in whole seconds so that it fits a JWT {@code exp} unchanged. */
+    private Instant nextExpiry() {
+        return Instant.now().plusSeconds(jwtService.getRefreshTtlSeconds()).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private Instant expiresFrom(PresentedToken presented) {
+        return presented.expiresAt() != null
+                ? presented.expiresAt().minus(EXPIRY_SLACK)
+                : Instant.now().minusSeconds(jwtService.getRefreshTtlSeconds());
+    }
+
+    private Instant expiresTo(PresentedToken presented) {
+        return presented.expiresAt() != null
+                ? presented.expiresAt().plus(EXPIRY_SLACK)
+                : Instant.now().plusSeconds(jwtService.getRefreshTtlSeconds()).plus(EXPIRY_SLACK);
+    }
+
+    /**
+     * The jti and compact value of a new refresh token expiring at {@code expiresAt}. A JWT embeds the user as
+     * subject, so its value is left null when the user is not known yet.
+     */
+    private NewToken newToken(UUID userId, Instant expiresAt) {
+        if ("opaque".equalsIgnoreCase(refreshTokenFormat)) {
+            ByteBuffer bytes = ByteBuffer.allocate(OPAQUE_TOKEN_BYTES + Integer.BYTES);
+            RANDOM.nextBytes(bytes.array());
+            bytes.putInt(OPAQUE_TOKEN_BYTES, (int) expiresAt.getEpochSecond());
+            String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array());
+            return new NewToken(opaqueJti(value), value);
+        }
+        UUID jti = UUID.randomUUID();
+        return new NewToken(jti, userId == null ? null : jwtService.generateRefreshToken(userId, jti.toString(), expiresAt));
+    }
+
+    private static UUID opaqueJti(String token) {
+        try {
+            ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new UUID(digest.getLong(), digest.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static UUID parseJti(String jti) {
+        try {
+            return UUID.fromString(jti);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new BadCredentialsException("Refresh token not recognized");
+        }
+    }
+
+    private void save(UUID jti, User user, Instant expiresAt) {
+        RefreshToken rt = RefreshToken.builder()
+                .jti(jti)
+                .user(user)
+                .expiresAt(expiresAt)
+                .revoked(false)
+                .build();
+        refreshTokenRepository.save(Objects.requireNonNull(rt));
+    }
+
+    public record Rotation(UUID userId, String refreshToken) {
+    }
+
+    /**
+     * A syntactically valid presented refresh token; {@code subject} is null for opaque tokens, {@code expiresAt}
+     * for opaque tokens from before they carried it.
+     */
+    public record PresentedToken(UUID jti, UUID subject, Instant expiresAt) {
+    }
+
+    private record NewToken(UUID jti, String value) {
+    }
+
+    /** Keyset position in a session listing: the (created_at, session id) of the last session returned. */
+    private record Cursor(Instant createdAt, UUID sessionId) {
+
+        static Cursor after(SessionDto last) {
+            return new Cursor(last.lastRotatedAt(), last.id());
+        }
+
+        String encode() {
+            String raw = createdAt + "," + sessionId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int comma = raw.indexOf(',');
+                return new Cursor(Instant.parse(raw.substring(0, comma)), UUID.fromString(raw.substring(comma + 1)));
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+    }
+}
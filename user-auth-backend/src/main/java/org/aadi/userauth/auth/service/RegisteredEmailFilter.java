@@ -0,0 +1,148 @@
+package org.aadi.userauth.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aadi.userauth.auth.repository.UserRepository;
+import org.aadi.userauth.security.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over the canonical (trimmed, lower-cased) emails in the users table, so "is this email
+ * registered" can be answered with a definite no without a query.
+ * <p>
+ * The filter is built by streaming the users table on startup and again every rebuild interval, which is
+ * also how deleted accounts drop out. New users are added after their transaction commits. Until the first
+ * build has finished, and when the filter is disabled, every email is reported as possibly registered.
+ * At 10M expected emails and a 1% false-positive rate the filter takes about 12 MB.
+ * <p>
+ * Only the availability check consults it. Flows that must not reveal whether an account exists, such as a
+ * password reset request, do the same work for every email and do not short-circuit on a definite no.
+ */
+@Slf4j
+@Component
+public class RegisteredEmailFilter {
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final AtomicLong entries = new AtomicLong();
+    private final Counter definiteNegatives;
+    private volatile BloomFilter filter;
+    private volatile BloomFilter rebuilding;
+
+    public RegisteredEmailFilter(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.email-filter.enabled:true}") boolean enabled,
+            @Value("${app.email-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${app.email-filter.false-positive-rate:0.01}") double falsePositiveRate
+    ) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.definiteNegatives = Counter.builder("email.filter.negatives")
+                .description("Email lookups answered as unregistered without a users query")
+                .register(meterRegistry);
+        Gauge.builder("email.filter.memory", this, f -> f.filter == null ? 0 : f.filter.sizeInBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("email.filter.entries", entries, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("email.filter.false.positive.rate.configured", () -> falsePositiveRate).register(meterRegistry);
+        Gauge.builder("email.filter.false.positive.rate.estimated", this,
+                        f -> f.filter == null ? 1.0 : f.filter.estimatedFalsePositiveRate())
+                .register(meterRegistry);
+    }
+
+    /** False only when {@code email} is certainly not registered; true means a query is needed to be sure. */
+    public boolean mightBeRegistered(String email) {
+        BloomFilter current = filter;
+        if (current == null || email == null) {
+            return true;
+        }
+        if (current.mightContain(canonical(email))) {
+            return true;
+        }
+        definiteNegatives.increment();
+        return false;
+    }
+
+    /** Records a new user. Inside a transaction the email is added once it commits. */
+    public void add(String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+        String canonical = canonical(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addNow(canonical);
+                }
+            });
+        } else {
+            addNow(canonical);
+        }
+    }
+
+    /**
+     * Builds a fresh filter from the users table and swaps it in. Adds that commit while the table is being
+     * read go into both filters, so none are lost across the swap. If the read fails the previous filter stays.
+     */
+    @Scheduled(fixedDelayString = "${app.email-filter.rebuild-interval:PT6H}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        BloomFilter fresh = new BloomFilter(expectedInsertions, falsePositiveRate);
+        rebuilding = fresh;
+        long count = 0;
+        try (Stream<String> emails = userRepository.streamAllEmails()) {
+            for (String email : (Iterable<String>) emails::iterator) {
+                fresh.add(canonical(email));
+                count++;
+            }
+            filter = fresh;
+            entries.set(count);
+        } finally {
+            rebuilding = null;
+        }
+        if (count > expectedInsertions) {
+            log.warn("{} registered emails exceed app.email-filter.expected-insertions={}; false positives will rise",
+                    count, expectedInsertions);
+        }
+        log.info("Registered-email filter built from {} users in {} ms ({} KiB, {} hashes)",
+                count, (System.nanoTime() - started) / 1_000_000, fresh.sizeInBytes() / 1024, fresh.hashCount());
+    }
+
+    private void addNow(String canonical) {
+        // Read rebuilding before filter: rebuild() publishes filter before clearing rebuilding
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.add(canonical);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(canonical);
+            entries.incrementAndGet();
+        }
+    }
+
+    static String canonical(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
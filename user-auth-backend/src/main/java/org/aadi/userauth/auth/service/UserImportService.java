@@ -0,0 +1,429 @@
+package org.aadi.userauth.auth.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.aadi.userauth.auth.dto.UserImportEvent;
+import org.aadi.userauth.auth.dto.UserImportRow;
+import org.aadi.userauth.security.BoundedPasswordEncoder;
+import org.aadi.userauth.security.PasswordEncoderCalibration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Streams accounts from an NDJSON or CSV body into the users table, for onboarding migrated customers.
+ * <p>
+ * The input is read line by line and written in batches of {@code app.user-import.batch-size}, each batch as a
+ * single {@code INSERT ... SELECT FROM unnest(...) ON CONFLICT (email) DO NOTHING RETURNING email}, so an
+ * already registered email is reported for its row instead of failing the batch. Registered emails are looked
+ * up before the batch's passwords are hashed, so they cost no hash. Every batch commits on its own: a failed or
+ * interrupted import keeps what it wrote and can be re-run with the same file.
+ * <p>
+ * Imported users are enabled, get no OTP mail and no roles. Encoded passwords are stored as given; raw ones
+ * are hashed with the configured algorithm on a dedicated pool, so an import never queues behind or ahead of
+ * logins on the {@link BoundedPasswordEncoder} pool. Raw passwords are not checked against the password policy,
+ * since migrated users already chose them. Only one import runs at a time.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final String INSERT_BATCH = """
+            INSERT INTO users (id, email, name, password, mobile, image, provider, enabled, created_at, updated_at)
+            SELECT gen_random_uuid(), t.email, t.name, t.password, t.mobile, t.image, 'LOCAL', true, now(), now()
+            FROM unnest(?::text[], ?::text[], ?::text[], ?::text[], ?::text[]) AS t(email, name, password, mobile, image)
+            ON CONFLICT (email) DO NOTHING
+            RETURNING email
+            """;
+    private static final String SELECT_REGISTERED = "SELECT email FROM users WHERE email = ANY(?::text[])";
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}");
+    private static final int MAX_EMAIL_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final PasswordEncoder passwordEncoder;
+    private final RegisteredEmailFilter registeredEmails;
+    private final ExecutorService hashingPool;
+    private final int batchSize;
+    private final int maxReportedErrors;
+    private final Semaphore running = new Semaphore(1);
+
+    public UserImportService(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            PasswordEncoder passwordEncoder,
+            RegisteredEmailFilter registeredEmails,
+            @Value("${app.user-import.batch-size:1000}") int batchSize,
+            @Value("${app.user-import.hashing-threads:0}") int hashingThreads,
+            @Value("${app.user-import.max-reported-errors:1000}") int maxReportedErrors
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.passwordEncoder = passwordEncoder instanceof BoundedPasswordEncoder bounded
+                ? bounded.unbounded() : passwordEncoder;
+        this.registeredEmails = registeredEmails;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        // Leave half the cores to request handling unless told otherwise
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.hashingPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "user-import-hashing-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Imports every row of {@code input}, passing per-row errors, a progress event after each batch and a final
+     * summary to {@code events}. Errors beyond {@code app.user-import.max-reported-errors} are only counted.
+     */
+    public void importUsers(InputStream input, Format format, Consumer<UserImportEvent> events) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Another user import is running");
+        }
+        try {
+            new Run(events).read(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), format);
+        } finally {
+            running.release();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    private record Pending(long line, UserImportRow row) {
+    }
+
+    /** State of one import. */
+    private final class Run {
+
+        private final Consumer<UserImportEvent> events;
+        private final long startedAt = System.nanoTime();
+        private final List<Pending> batch = new ArrayList<>();
+        private long read;
+        private long imported;
+        private long skipped;
+        private long failed;
+
+        Run(Consumer<UserImportEvent> events) {
+            this.events = events;
+        }
+
+        void read(BufferedReader reader, Format format) throws IOException {
+            String[] header = null;
+            long line = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = csvHeader(text);
+                    continue;
+                }
+                read++;
+                UserImportRow row;
+                try {
+                    row = format == Format.CSV ? csvRow(header, parseCsvLine(text)) : jsonRow(text);
+                } catch (IllegalArgumentException e) {
+                    fail(line, null, e.getMessage());
+                    continue;
+                }
+                batch.add(new Pending(line, row));
+                if (batch.size() >= batchSize && !flushOrAbort()) {
+                    return;
+                }
+            }
+            if (!flushOrAbort()) {
+                return;
+            }
+            events.accept(counts("summary", null));
+            log.info("User import finished: {} rows read, {} imported, {} already registered, {} failed",
+                    read, imported, skipped, failed);
+        }
+
+        /** Writes the pending batch; on a database error reports the abort and returns false. */
+        private boolean flushOrAbort() {
+            try {
+                flush();
+                return true;
+            } catch (DataAccessException e) {
+                log.error("User import aborted after {} rows", read, e);
+                events.accept(counts("aborted", "Database error, rows before line " + batchStartLine()
+                        + " were imported; re-run the file to continue"));
+                return false;
+            }
+        }
+
+        private long batchStartLine() {
+            return batch.isEmpty() ? 0 : batch.get(0).line();
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            Map<String, Pending> byEmail = new LinkedHashMap<>();
+            for (Pending pending : batch) {
+                String error = validate(pending.row());
+                if (error != null) {
+                    fail(pending.line(), pending.row().email(), error);
+                } else if (byEmail.putIfAbsent(RegisteredEmailFilter.canonical(pending.row().email()), pending) != null) {
+                    fail(pending.line(), pending.row().email(), "Duplicate email in import");
+                }
+            }
+            skipRegistered(byEmail);
+            Map<String, String> passwords = encodePasswords(byEmail);
+            insert(byEmail, passwords);
+            batch.clear();
+            events.accept(counts("progress", null));
+        }
+
+        /**
+         * Drops rows whose email is already registered before their passwords are hashed, so re-running a
+         * partly imported file costs one indexed lookup per batch instead of a hash per row. Only emails the
+         * filter cannot rule out are looked up; ON CONFLICT still covers a user registered after the lookup.
+         */
+        private void skipRegistered(Map<String, Pending> byEmail) {
+            String[] candidates = byEmail.keySet().stream()
+                    .filter(registeredEmails::mightBeRegistered)
+                    .toArray(String[]::new);
+            if (candidates.length == 0) {
+                return;
+            }
+            List<String> registered = jdbcTemplate.query(SELECT_REGISTERED,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", candidates)),
+                    (rs, rowNum) -> rs.getString(1));
+            for (String email : registered) {
+                Pending pending = byEmail.remove(email);
+                if (pending != null) {
+                    skipped++;
+                    report(UserImportEvent.error(pending.line(), pending.row().email(), "Email already registered"));
+                }
+            }
+        }
+
+        /** Encodes raw passwords in parallel; rows whose password cannot be used are failed and dropped. */
+        private Map<String, String> encodePasswords(Map<String, Pending> byEmail) {
+            Map<String, Future<String>> hashing = new HashMap<>();
+            Map<String, String> passwords = new HashMap<>();
+            for (Map.Entry<String, Pending> entry : byEmail.entrySet()) {
+                String password = entry.getValue().row().password();
+                if (password == null || password.isEmpty()) {
+                    continue; // no password: the user signs in through OAuth or sets one via forgot-password
+                }
+                if (password.startsWith("{")) {
+                    passwords.put(entry.getKey(), password);
+                } else {
+                    hashing.put(entry.getKey(), hashingPool.submit(() -> passwordEncoder.encode(password)));
+                }
+            }
+            for (Map.Entry<String, Future<String>> entry : hashing.entrySet()) {
+                try {
+                    passwords.put(entry.getKey(), entry.getValue().get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while hashing imported passwords", e);
+                } catch (ExecutionException e) {
+                    Pending pending = byEmail.remove(entry.getKey());
+                    fail(pending.line(), pending.row().email(), "Could not hash password");
+                }
+            }
+            return passwords;
+        }
+
+        private void insert(Map<String, Pending> byEmail, Map<String, String> passwords) {
+            if (byEmail.isEmpty()) {
+                return;
+            }
+            int size = byEmail.size();
+            String[] emails = new String[size];
+            String[] names = new String[size];
+            String[] encoded = new String[size];
+            String[] mobiles = new String[size];
+            String[] images = new String[size];
+            int i = 0;
+            for (Map.Entry<String, Pending> entry : byEmail.entrySet()) {
+                UserImportRow row = entry.getValue().row();
+                emails[i] = entry.getKey();
+                names[i] = row.name();
+                encoded[i] = passwords.get(entry.getKey());
+                mobiles[i] = row.mobile();
+                images[i] = row.image();
+                i++;
+            }
+            List<String> inserted = jdbcTemplate.query(INSERT_BATCH, ps -> {
+                String[][] columns = {emails, names, encoded, mobiles, images};
+                for (int column = 0; column < columns.length; column++) {
+                    Array array = ps.getConnection().createArrayOf("text", columns[column]);
+                    ps.setArray(column + 1, array);
+                }
+            }, (rs, rowNum) -> rs.getString(1));
+
+            Set<String> created = new HashSet<>(inserted);
+            for (Map.Entry<String, Pending> entry : byEmail.entrySet()) {
+                if (created.contains(entry.getKey())) {
+                    imported++;
+                    registeredEmails.add(entry.getKey());
+                } else {
+                    skipped++;
+                    report(UserImportEvent.error(entry.getValue().line(), entry.getValue().row().email(),
+                            "Email already registered"));
+                }
+            }
+        }
+
+        private void fail(long line, String email, String error) {
+            failed++;
+            report(UserImportEvent.error(line, email, error));
+        }
+
+        private void report(UserImportEvent error) {
+            if (failed + skipped <= maxReportedErrors) {
+                events.accept(error);
+            }
+        }
+
+        private UserImportEvent counts(String type, String error) {
+            double seconds = (System.nanoTime() - startedAt) / 1e9;
+            double rate = seconds > 0 ? Math.round(read / seconds * 10) / 10.0 : 0;
+            return new UserImportEvent(type, null, null, error, read, imported, skipped, failed, rate);
+        }
+
+        private UserImportRow jsonRow(String text) {
+            try {
+                UserImportRow row = objectMapper.readValue(text, UserImportRow.class);
+                if (row == null) {
+                    throw new IllegalArgumentException("Expected a JSON object");
+                }
+                return row;
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /** Returns the reason the row cannot be imported, or null if it can. */
+    private static String validate(UserImportRow row) {
+        String email = row.email();
+        if (email == null || email.isBlank()) {
+            return "Email is required";
+        }
+        String canonical = RegisteredEmailFilter.canonical(email);
+        int at = canonical.indexOf('@');
+        if (at <= 0 || at != canonical.lastIndexOf('@') || at == canonical.length() - 1
+                || canonical.length() > MAX_EMAIL_LENGTH) {
+            return "Invalid email";
+        }
+        String password = row.password();
+        if (password != null && password.startsWith("{")) {
+            String bcryptPrefix = "{" + PasswordEncoderCalibration.BCRYPT + "}";
+            String argon2Prefix = "{" + PasswordEncoderCalibration.ARGON2 + "}";
+            if (password.startsWith(bcryptPrefix)) {
+                if (!BCRYPT_HASH.matcher(password.substring(bcryptPrefix.length())).matches()) {
+                    return "Malformed bcrypt hash";
+                }
+            } else if (password.startsWith(argon2Prefix)) {
+                if (!password.startsWith("$argon2", argon2Prefix.length())) {
+                    return "Malformed argon2 hash";
+                }
+            } else {
+                return "Unsupported password encoding, expected {bcrypt} or {argon2}";
+            }
+        }
+        return null;
+    }
+
+    private static String[] csvHeader(String line) {
+        String[] header;
+        try {
+            header = parseCsvLine(line);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed CSV header: " + e.getMessage());
+        }
+        for (int i = 0; i < header.length; i++) {
+            header[i] = header[i].trim().toLowerCase(Locale.ROOT);
+        }
+        if (!List.of(header).contains("email")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header must name an email column");
+        }
+        return header;
+    }
+
+    private static UserImportRow csvRow(String[] header, String[] fields) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < header.length && i < fields.length; i++) {
+            String value = fields[i];
+            values.put(header[i], value.isEmpty() ? null : value);
+        }
+        return new UserImportRow(values.get("email"), values.get("name"), values.get("password"),
+                values.get("mobile"), values.get("image"));
+    }
+
+    /** Splits one RFC 4180 record; quoted fields may contain commas and doubled quotes but not line breaks. */
+    static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted CSV field");
+        }
+        fields.add(field.toString());
+        return fields.toArray(String[]::new);
+    }
+}
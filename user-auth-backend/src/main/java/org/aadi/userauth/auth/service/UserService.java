@@ -3,6 +3,7 @@ package org.aadi.userauth.auth.service;
 import org.aadi.userauth.auth.model.Provider;
 import org.aadi.userauth.auth.model.User;
 import org.aadi.userauth.auth.repository.UserRepository;
+import org.aadi.userauth.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import java.util.Objects;
@@ -14,6 +15,10 @@ public class UserService {
 
     private final UserRepository userRepository;
 
+    private final PrincipalCache principalCache;
+
+    private final RegisteredEmailFilter registeredEmails;
+
 
     public User saveUserIfNotExit(String providerId, String email, String username, String image, Provider provider) {
 
@@ -29,7 +34,10 @@ public class UserService {
                     .enabled(true)
                     .build();
         });
-        return userRepository.save(Objects.requireNonNull(user));
+        User saved = userRepository.save(Objects.requireNonNull(user));
+        principalCache.invalidate(saved);
+        registeredEmails.add(saved.getEmail());
+        return saved;
 
 
     }
@@ -0,0 +1,202 @@
+package org.aadi.userauth.auth.service.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link JavaMailSenderImpl} that keeps up to {@code poolSize} authenticated SMTP connections open and sends
+ * many messages over each, instead of a TCP + STARTTLS + AUTH handshake per {@code send} call.
+ * <p>
+ * A connection is recycled after {@code maxMessagesPerConnection} messages or once it has been idle for
+ * {@code maxIdle}, before providers drop it on their side. Sending is paced to at most
+ * {@code maxMessagesPerSecond} across all connections. Per-message failures are reported through
+ * {@link MailSendException#getFailedMessages()} as with the plain sender.
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private final Semaphore permits;
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private final int maxMessagesPerConnection;
+    private final long maxIdleNanos;
+    private final Duration borrowTimeout;
+    private final long sendIntervalNanos;
+    private final AtomicLong nextSendSlot = new AtomicLong();
+
+    public PooledJavaMailSender(int poolSize, int maxMessagesPerConnection, Duration maxIdle,
+                                Duration borrowTimeout, double maxMessagesPerSecond) {
+        this.permits = new Semaphore(poolSize, true);
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.borrowTimeout = borrowTimeout;
+        this.sendIntervalNanos = maxMessagesPerSecond > 0 ? (long) (1_000_000_000L / maxMessagesPerSecond) : 0;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        PooledTransport connection = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessages[i];
+                if (connection == null) {
+                    try {
+                        connection = borrow();
+                    } catch (MessagingException | InterruptedException ex) {
+                        // Nothing after this point can go out; report the rest of the batch as failed
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+                        }
+                        if (ex instanceof InterruptedException) {
+                            Thread.currentThread().interrupt();
+                        }
+                        break;
+                    }
+                }
+                awaitSendSlot();
+                try {
+                    send(connection.transport(), mimeMessages[i]);
+                    connection.sent++;
+                } catch (MessagingException ex) {
+                    failedMessages.put(original, ex);
+                    if (!connection.transport().isConnected()) {
+                        discard(connection);
+                        connection = null;
+                    }
+                }
+                if (connection != null && connection.sent >= maxMessagesPerConnection) {
+                    discard(connection);
+                    connection = null;
+                }
+            }
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    private void send(Transport transport, MimeMessage message) throws MessagingException {
+        // Same preparation as JavaMailSenderImpl#doSend
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        String messageId = message.getMessageID();
+        message.saveChanges();
+        if (messageId != null) {
+            message.setHeader("Message-ID", messageId);
+        }
+        Address[] addresses = message.getAllRecipients();
+        transport.sendMessage(message, addresses != null ? addresses : new Address[0]);
+    }
+
+    /** Takes the most recently used live connection, opening a new one if none is idle. */
+    private PooledTransport borrow() throws MessagingException, InterruptedException {
+        if (!permits.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new MessagingException("No SMTP connection available within " + borrowTimeout.toMillis() + "ms");
+        }
+        try {
+            PooledTransport connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (!isStale(connection) && connection.transport().isConnected()) {
+                    return connection;
+                }
+                close(connection);
+            }
+            return new PooledTransport(connectTransport());
+        } catch (MessagingException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private void release(PooledTransport connection) {
+        connection.lastUsedNanos = System.nanoTime();
+        idle.offerFirst(connection);
+        permits.release();
+    }
+
+    private void discard(PooledTransport connection) {
+        close(connection);
+        permits.release();
+    }
+
+    private boolean isStale(PooledTransport connection) {
+        return System.nanoTime() - connection.lastUsedNanos > maxIdleNanos;
+    }
+
+    /** Closes connections that have been idle for longer than the idle limit. */
+    @Scheduled(fixedDelayString = "${app.mail.pool.max-idle:PT30S}")
+    public void closeIdle() {
+        for (PooledTransport connection : idle) {
+            if (isStale(connection) && idle.remove(connection)) {
+                close(connection);
+            }
+        }
+    }
+
+    /** Spaces sends {@code 1 / maxMessagesPerSecond} apart across all callers. */
+    private void awaitSendSlot() {
+        if (sendIntervalNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long slot = Math.max(now, nextSendSlot.getAndAccumulate(now, (next, t) -> Math.max(next, t) + sendIntervalNanos));
+        while (slot - System.nanoTime() > 0) {
+            LockSupport.parkNanos(slot - System.nanoTime());
+        }
+    }
+
+    private static void close(PooledTransport connection) {
+        try {
+            connection.transport().close();
+        } catch (MessagingException ex) {
+            log.debug("Failed to close SMTP connection", ex);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        PooledTransport connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private int sent;
+        private long lastUsedNanos = System.nanoTime();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        Transport transport() {
+            return transport;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.aadi.userauth.auth.service.otp;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** Runs in-memory OTP state changes only once the surrounding transaction, if any, has committed. */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /** Runs {@code change} after the active transaction commits (dropped on rollback), or now without one. */
+    static void run(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
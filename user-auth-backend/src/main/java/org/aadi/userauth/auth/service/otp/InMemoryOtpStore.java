@@ -0,0 +1,176 @@
+package org.aadi.userauth.auth.service.otp;
+
+import org.aadi.userauth.auth.model.Otp;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps codes in process memory; nothing touches the database. Codes are lost on restart and are not shared
+ * between nodes, so this suits single-node deployments or sticky routing.
+ * <p>
+ * Expiry uses a hashed timing wheel: each stored code's key sits in the slot of the tick it expires in, and every
+ * operation first drains the slots whose tick has passed. Removing expired codes therefore only looks at codes
+ * that are due, never at the whole map. A key is in exactly one slot while its code is stored: replacing a code
+ * moves the key only when the expiry falls in another slot, and consuming or dropping a code takes it out.
+ * <p>
+ * The number of stored codes is capped per {@link Otp.OtpType}, so a flood of reset requests cannot use up the
+ * room registrations need; past the cap, new emails are refused with 503 rather than evicting someone else's code.
+ * <p>
+ * Saves and invalidations made inside a transaction take effect when it commits, like the rows of
+ * {@link JpaOtpStore}: a request that rolls back, such as a duplicate registration, leaves the pending code alone.
+ * {@link #consume} and {@link #burn} act at once.
+ */
+public class InMemoryOtpStore implements OtpStore {
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger[] counts = new AtomicInteger[Otp.OtpType.values().length];
+    private final Set<Key>[] wheel;
+    private final int maxEntries;
+    private final long tickMillis;
+    private final ReentrantLock advanceLock = new ReentrantLock();
+    private volatile long drainedTick;
+
+    @SuppressWarnings("unchecked")
+    public InMemoryOtpStore(int maxEntries, Duration tick, int wheelSlots) {
+        this.maxEntries = maxEntries;
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.wheel = new Set[wheelSlots];
+        for (int i = 0; i < wheelSlots; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new AtomicInteger();
+        }
+        this.drainedTick = System.currentTimeMillis() / tickMillis - 1;
+    }
+
+    @Override
+    public void save(String email, Otp.OtpType type, String code, Instant expiresAt) {
+        long now = advance();
+        Key key = new Key(email, type);
+        if (counts[type.ordinal()].get() >= maxEntries && !entries.containsKey(key)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many pending verification codes. Please try again later.");
+        }
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        Entry entry = new Entry(code.getBytes(StandardCharsets.UTF_8), expiresAtMillis);
+        AfterCommit.run(() -> entries.compute(key, (k, previous) -> {
+            if (previous == null) {
+                counts[k.type().ordinal()].incrementAndGet();
+                wheel[slot(entry)].add(k);
+            } else if (slot(previous) != slot(entry)) {
+                wheel[slot(previous)].remove(k);
+                wheel[slot(entry)].add(k);
+            }
+            return entry;
+        }));
+    }
+
+    @Override
+    public boolean consume(String email, Otp.OtpType type, String code) {
+        long now = advance();
+        byte[] presented = code.getBytes(StandardCharsets.UTF_8);
+        boolean[] consumed = {false};
+        entries.computeIfPresent(new Key(email, type), (key, entry) -> {
+            if (entry.expiresAtMillis() <= now) {
+                return removed(key, entry);
+            }
+            if (!MessageDigest.isEqual(entry.code(), presented)) {
+                return entry;
+            }
+            consumed[0] = true;
+            return removed(key, entry);
+        });
+        return consumed[0];
+    }
+
+    @Override
+    public void invalidate(String email, Otp.OtpType type) {
+        Key key = new Key(email, type);
+        AfterCommit.run(() -> {
+            advance();
+            entries.computeIfPresent(key, this::removed);
+        });
+    }
+
+    @Override
+    public void burn(String email, Otp.OtpType type) {
+        advance();
+        entries.computeIfPresent(new Key(email, type), this::removed);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Keys held in the wheel; equals {@link #size()}, since each stored code's key is in one slot. */
+    int queued() {
+        return Arrays.stream(wheel).mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Takes the key out of its slot and the count, and returns null for the map to drop the entry. Called only
+     * from the map's compute functions, which keep the slots and counts in step with the entries of each key.
+     */
+    private Entry removed(Key key, Entry entry) {
+        wheel[slot(entry)].remove(key);
+        counts[key.type().ordinal()].decrementAndGet();
+        return null;
+    }
+
+    private int slot(Entry entry) {
+        return (int) ((entry.expiresAtMillis() / tickMillis) % wheel.length);
+    }
+
+    /**
+     * Drains the wheel slots of the ticks that have ended since the last call and returns the current time.
+     * A tick is drained only once it is over, so every code queued in its slot for this round has expired.
+     */
+    private long advance() {
+        long now = System.currentTimeMillis();
+        long endedTick = now / tickMillis - 1;
+        if (endedTick <= drainedTick || !advanceLock.tryLock()) {
+            return now;
+        }
+        try {
+            long last = Math.max(drainedTick, endedTick - wheel.length);
+            for (long tick = last + 1; tick <= endedTick; tick++) {
+                drain((int) (tick % wheel.length), now);
+            }
+            drainedTick = endedTick;
+        } finally {
+            advanceLock.unlock();
+        }
+        return now;
+    }
+
+    /**
+     * Drops the expired codes whose keys are in the slot. Codes due in a later wheel round stay; a key that a
+     * concurrent save adds meanwhile is either seen here and kept, since it is live, or left for a later pass.
+     */
+    private void drain(int slot, long now) {
+        for (Key key : wheel[slot]) {
+            entries.computeIfPresent(key, (k, e) -> e.expiresAtMillis() <= now ? removed(k, e) : e);
+        }
+    }
+
+    private record Key(String email, Otp.OtpType type) {
+    }
+
+    private record Entry(byte[] code, long expiresAtMillis) {
+    }
+}
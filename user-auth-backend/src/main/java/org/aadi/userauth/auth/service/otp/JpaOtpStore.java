@@ -0,0 +1,57 @@
+package org.aadi.userauth.auth.service.otp;
+
+import lombok.RequiredArgsConstructor;
+import org.aadi.userauth.auth.model.Otp;
+import org.aadi.userauth.auth.repository.OtpRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/** Keeps codes in the {@code otps} table. Survives restarts and is shared by every node. */
+@RequiredArgsConstructor
+public class JpaOtpStore implements OtpStore {
+
+    private final OtpRepository otpRepository;
+
+    @Override
+    public void save(String email, Otp.OtpType type, String code, Instant expiresAt) {
+        otpRepository.deleteByEmailAndType(email, type);
+        create(email, type, code, expiresAt);
+    }
+
+    /** Insert only; the row is written with the caller's other inserts at flush. */
+    @Override
+    public void create(String email, Otp.OtpType type, String code, Instant expiresAt) {
+        Otp otp = Otp.builder()
+                .email(email)
+                .code(code)
+                .expiresAt(expiresAt)
+                .type(type)
+                .used(false)
+                .build();
+        otpRepository.save(Objects.requireNonNull(otp));
+    }
+
+    /** One conditional UPDATE; the row lock makes concurrent verifications of the same code succeed once. */
+    @Override
+    public boolean consume(String email, Otp.OtpType type, String code) {
+        return otpRepository.consume(email, type, code) > 0;
+    }
+
+    @Override
+    public void invalidate(String email, Otp.OtpType type) {
+        otpRepository.invalidate(email, type);
+    }
+
+    /** Commits on its own, so the burn outlives the failed verification's rollback. */
+    @Override
+    public void burn(String email, Otp.OtpType type) {
+        otpRepository.burn(email, type);
+    }
+
+    /** Unused, unexpired codes, for warming an in-memory store after a restart. */
+    List<Otp> findLive() {
+        return otpRepository.findByUsedFalseAndExpiresAtAfter(Instant.now());
+    }
+}
@@ -0,0 +1,58 @@
+package org.aadi.userauth.auth.service.otp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.aadi.userauth.auth.model.Otp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wrong OTP guesses per (email, type), kept in memory. Once {@code max-attempts} is reached the identity is
+ * locked out until a new code is issued, and further guesses are rejected without reaching the {@link OtpStore}.
+ * <p>
+ * Entries outlive the code they count against and are bounded in number. Counts are per node; with several
+ * nodes an attacker gets at most {@code max-attempts} guesses on each.
+ */
+@Component
+public class OtpAttemptCounter {
+
+    private final int maxAttempts;
+    private final Cache<Key, AtomicInteger> failures;
+
+    public OtpAttemptCounter(
+            @Value("${app.otp.max-attempts:5}") int maxAttempts,
+            @Value("${app.otp.attempt-counter.max-size:100000}") long maxSize
+    ) {
+        this.maxAttempts = maxAttempts;
+        this.failures = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(15))
+                .build();
+    }
+
+    public boolean isLockedOut(String email, Otp.OtpType type) {
+        AtomicInteger count = failures.getIfPresent(new Key(email, type));
+        return count != null && count.get() >= maxAttempts;
+    }
+
+    /** Counts a wrong guess and returns true if it is the one that locks the identity out. */
+    public boolean recordFailure(String email, Otp.OtpType type) {
+        AtomicInteger count = failures.get(new Key(email, type), key -> new AtomicInteger());
+        return count.incrementAndGet() == maxAttempts;
+    }
+
+    /**
+     * Clears the count once a code is issued or used. Inside a transaction this waits for the commit: a request
+     * that rolls back, such as a duplicate registration, has replaced no code and must not restore any guesses.
+     */
+    public void reset(String email, Otp.OtpType type) {
+        Key key = new Key(email, type);
+        AfterCommit.run(() -> failures.invalidate(key));
+    }
+
+    private record Key(String email, Otp.OtpType type) {
+    }
+}
@@ -0,0 +1,40 @@
+package org.aadi.userauth.auth.service.otp;
+
+import org.aadi.userauth.auth.model.Otp;
+
+import java.time.Instant;
+
+/**
+ * Storage for one-time codes, at most one live code per (email, type).
+ * Selected with {@code app.otp.store}: {@code jpa}, {@code memory} or {@code hybrid}.
+ */
+public interface OtpStore {
+
+    /** Stores {@code code} for (email, type), replacing any code issued before. */
+    void save(String email, Otp.OtpType type, String code, Instant expiresAt);
+
+    /**
+     * Stores the first code for (email, type), when the caller knows there is no earlier one to replace.
+     * Stores may skip the replace step.
+     */
+    default void create(String email, Otp.OtpType type, String code, Instant expiresAt) {
+        save(email, type, code, expiresAt);
+    }
+
+    /**
+     * Uses up the code if it is the live, unused code for (email, type).
+     * Returns true at most once per stored code.
+     */
+    boolean consume(String email, Otp.OtpType type, String code);
+
+    /** Drops any code stored for (email, type). */
+    void invalidate(String email, Otp.OtpType type);
+
+    /**
+     * Drops any code stored for (email, type) after too many wrong guesses. Unlike {@link #invalidate} this must
+     * stand even if the caller's transaction rolls back.
+     */
+    default void burn(String email, Otp.OtpType type) {
+        invalidate(email, type);
+    }
+}
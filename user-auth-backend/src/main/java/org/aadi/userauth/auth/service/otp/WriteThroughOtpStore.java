@@ -0,0 +1,92 @@
+package org.aadi.userauth.auth.service.otp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aadi.userauth.auth.model.Otp;
+
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves codes from an {@link InMemoryOtpStore} and copies every change to a {@link JpaOtpStore} on a
+ * background thread, so requests never wait on the database. On startup the live codes are loaded back from
+ * the table, which lets pending verifications survive a restart.
+ * <p>
+ * Like the in-memory store, changes made inside a transaction are applied, and queued for the database, once
+ * it commits.
+ * <p>
+ * Writes that cannot be queued are dropped with a warning; the in-memory copy stays authoritative, so only
+ * restart durability of those codes is lost.
+ */
+@Slf4j
+public class WriteThroughOtpStore implements OtpStore, AutoCloseable {
+
+    private final InMemoryOtpStore memory;
+    private final JpaOtpStore database;
+    private final ThreadPoolExecutor writer;
+
+    public WriteThroughOtpStore(InMemoryOtpStore memory, JpaOtpStore database, int queueCapacity) {
+        this.memory = memory;
+        this.database = database;
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "otp-write-through");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> log.warn("OTP write-through queue full; dropping a write"));
+        int restored = 0;
+        for (Otp otp : database.findLive()) {
+            memory.save(otp.getEmail(), otp.getType(), otp.getCode(), otp.getExpiresAt());
+            restored++;
+        }
+        log.info("Restored {} pending OTPs from the database", restored);
+    }
+
+    @Override
+    public void save(String email, Otp.OtpType type, String code, Instant expiresAt) {
+        memory.save(email, type, code, expiresAt);
+        AfterCommit.run(() -> writeBehind(() -> database.save(email, type, code, expiresAt)));
+    }
+
+    @Override
+    public boolean consume(String email, Otp.OtpType type, String code) {
+        boolean consumed = memory.consume(email, type, code);
+        if (consumed) {
+            writeBehind(() -> database.invalidate(email, type));
+        }
+        return consumed;
+    }
+
+    @Override
+    public void invalidate(String email, Otp.OtpType type) {
+        memory.invalidate(email, type);
+        AfterCommit.run(() -> writeBehind(() -> database.invalidate(email, type)));
+    }
+
+    @Override
+    public void burn(String email, Otp.OtpType type) {
+        memory.burn(email, type);
+        writeBehind(() -> database.invalidate(email, type));
+    }
+
+    private void writeBehind(Runnable write) {
+        writer.execute(() -> {
+            try {
+                write.run();
+            } catch (RuntimeException e) {
+                log.warn("OTP write-through failed", e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        writer.shutdown();
+        if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("OTP write-through did not drain within 10s; {} writes lost", writer.shutdownNow().size());
+        }
+    }
+}
@@ -5,15 +5,22 @@ public class AppConstant {
     public static final String[] AUTH_PUBLIC_URLS = {
             "/api/v1/auth/login",
             "/api/v1/auth/register", 
+            "/api/v1/auth/email-available",
             "/api/v1/auth/refresh",
             "/api/v1/auth/verify-otp",
             "/api/v1/auth/forgot-password",
             "/api/v1/auth/reset-password",
             "/api/v1/auth/logout",
-            "/actuator/**",
+            "/.well-known/jwks.json",
+            "/actuator/health/**",
             "/v3/api-docs/**",
             "/swagger-ui.html",
             "/swagger-ui/**"
     };
 
+    /** Actuator endpoints other than health; metrics reveal user counts and hashing queue depth. */
+    public static final String[] ADMIN_URLS = {
+            "/actuator/**"
+    };
+
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package org.aadi.userauth.config;
+
+import org.aadi.userauth.auth.service.mail.PooledJavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Properties;
+
+// Boot only binds MailProperties in its own mail auto-configuration, which backs off once this sender exists
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    /**
+     * Replaces Spring Boot's per-send {@link JavaMailSenderImpl} with a pooled one configured from the same
+     * {@code spring.mail.*} properties. Disable with {@code app.mail.pool.enabled=false}.
+     * One connection by default: the only caller, {@link org.aadi.userauth.auth.service.EmailOutboxWorker}, sends
+     * from a single thread and each batch through one {@code send} call, which holds a single connection.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.mail.pool.enabled", havingValue = "true", matchIfMissing = true)
+    public JavaMailSenderImpl mailSender(
+            MailProperties mail,
+            @Value("${app.mail.pool.size:1}") int poolSize,
+            @Value("${app.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+            @Value("${app.mail.pool.max-idle:PT30S}") Duration maxIdle,
+            @Value("${app.mail.pool.borrow-timeout:PT30S}") Duration borrowTimeout,
+            @Value("${app.mail.pool.max-messages-per-second:10}") double maxMessagesPerSecond) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(
+                poolSize, maxMessagesPerConnection, maxIdle, borrowTimeout, maxMessagesPerSecond);
+        sender.setHost(mail.getHost());
+        if (mail.getPort() != null) {
+            sender.setPort(mail.getPort());
+        }
+        sender.setUsername(mail.getUsername());
+        sender.setPassword(mail.getPassword());
+        sender.setProtocol(mail.getProtocol());
+        sender.setDefaultEncoding(mail.getDefaultEncoding() != null
+                ? mail.getDefaultEncoding().name() : StandardCharsets.UTF_8.name());
+        Properties properties = new Properties();
+        properties.putAll(mail.getProperties());
+        sender.setJavaMailProperties(properties);
+        return sender;
+    }
+}
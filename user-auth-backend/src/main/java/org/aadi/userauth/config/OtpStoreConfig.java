@@ -0,0 +1,36 @@
+package org.aadi.userauth.config;
+
+import org.aadi.userauth.auth.repository.OtpRepository;
+import org.aadi.userauth.auth.service.otp.InMemoryOtpStore;
+import org.aadi.userauth.auth.service.otp.JpaOtpStore;
+import org.aadi.userauth.auth.service.otp.OtpStore;
+import org.aadi.userauth.auth.service.otp.WriteThroughOtpStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+public class OtpStoreConfig {
+
+    @Bean
+    public OtpStore otpStore(
+            OtpRepository otpRepository,
+            @Value("${app.otp.store:jpa}") String store,
+            @Value("${app.otp.memory.max-entries:100000}") int maxEntries,
+            @Value("${app.otp.memory.tick:PT1S}") Duration tick,
+            @Value("${app.otp.memory.wheel-slots:1024}") int wheelSlots,
+            @Value("${app.otp.write-through.queue-capacity:10000}") int queueCapacity) {
+        log.info("OTP store: {}", store);
+        return switch (store.toLowerCase()) {
+            case "jpa" -> new JpaOtpStore(otpRepository);
+            case "memory" -> new InMemoryOtpStore(maxEntries, tick, wheelSlots);
+            case "hybrid" -> new WriteThroughOtpStore(
+                    new InMemoryOtpStore(maxEntries, tick, wheelSlots), new JpaOtpStore(otpRepository), queueCapacity);
+            default -> throw new IllegalStateException("app.otp.store must be one of jpa, memory, hybrid");
+        };
+    }
+}
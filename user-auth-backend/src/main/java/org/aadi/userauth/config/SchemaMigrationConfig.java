@@ -0,0 +1,35 @@
+package org.aadi.userauth.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+// The schema is owned by the Flyway migrations in db/migration; Hibernate only validates it (ddl-auto: validate)
+@Configuration
+public class SchemaMigrationConfig {
+
+    /**
+     * Migrates on startup, after checking for what the migrations cannot convert. A database created by the former
+     * {@code ddl-auto: update} has a varchar {@code refresh_tokens.jti}; changing its type rewrites the table and
+     * its indexes, which belongs in a maintenance window rather than in every node's startup, so the conversion is
+     * the one-off {@code db/refresh_tokens_uuid_jti.sql}.
+     */
+    @Bean
+    public FlywayMigrationStrategy checkedMigration() {
+        return flyway -> {
+            List<String> jtiType = new JdbcTemplate(flyway.getConfiguration().getDataSource()).queryForList("""
+                    SELECT data_type FROM information_schema.columns
+                     WHERE table_schema = COALESCE(?, current_schema())
+                       AND table_name = 'refresh_tokens' AND column_name = 'jti'
+                    """, String.class, flyway.getConfiguration().getDefaultSchema());
+            if (!jtiType.isEmpty() && !"uuid".equals(jtiType.get(0))) {
+                throw new IllegalStateException("refresh_tokens.jti is " + jtiType.get(0)
+                        + ", not uuid: run db/refresh_tokens_uuid_jti.sql once before starting");
+            }
+            flyway.migrate();
+        };
+    }
+}
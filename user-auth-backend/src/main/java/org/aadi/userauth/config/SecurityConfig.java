@@ -1,7 +1,10 @@
 package org.aadi.userauth.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aadi.userauth.security.BoundedPasswordEncoder;
 import org.aadi.userauth.security.JwtAuthenticationFilter;
+import org.aadi.userauth.security.PasswordEncoderCalibration;
 import org.aadi.userauth.security.oauth2.OAuth2SuccessHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,7 +20,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -48,6 +50,7 @@ public class SecurityConfig {
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(AppConstant.AUTH_PUBLIC_URLS).permitAll()
+                        .requestMatchers(AppConstant.ADMIN_URLS).hasRole("ADMIN")
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .anyRequest().authenticated())
                 .oauth2Login(oauth2 -> oauth2
@@ -90,10 +93,19 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        // BCrypt with default strength is suitable; increase log rounds in
-        // high-security contexts
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${app.password.hashing.threads:0}") int threads,
+            @Value("${app.password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.password.hashing.retry-after-seconds:1}") long retryAfterSeconds,
+            @Value("${app.password.encoding.algorithm:bcrypt}") String algorithm,
+            @Value("${app.password.encoding.latency-budget-ms:80}") long latencyBudgetMs,
+            @Value("${app.password.encoding.min-bcrypt-cost:10}") int minBcryptCost,
+            @Value("${app.password.encoding.argon2-memory-kib:19456}") int argon2MemoryKib) {
+        // Work factors are calibrated to the latency budget at startup; stored hashes carry an {id} prefix
+        // and weaker ones are rehashed on login. Hashing runs on its own bounded pool, see BoundedPasswordEncoder.
+        PasswordEncoder delegate = PasswordEncoderCalibration.delegating(algorithm, latencyBudgetMs, minBcryptCost, argon2MemoryKib);
+        return new BoundedPasswordEncoder(delegate, threads, queueCapacity, retryAfterSeconds, meterRegistry);
     }
 
     @Bean
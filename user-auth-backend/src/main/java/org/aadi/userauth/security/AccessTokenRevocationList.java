@@ -0,0 +1,181 @@
+package org.aadi.userauth.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked access token ids, checked by {@link JwtAuthenticationFilter} on every bearer request.
+ * <p>
+ * Lookups first consult a Bloom filter, so the common case (token not revoked) is a handful of bit reads and
+ * never touches the exact set. The filter has two generations that swap every access TTL; a jti revoked at
+ * time {@code t} therefore stays in the filter until at least {@code t + ttl}, after which the token has expired
+ * anyway. The exact set removes false positives and drops entries once their token's {@code exp} has passed.
+ * <p>
+ * When a snapshot path is configured, the revoked jtis and the per-user epochs from {@link TokenEpochRegistry}
+ * are written to a memory-mapped file periodically and on shutdown, and read back on startup so a restarted
+ * node enforces earlier revocations immediately.
+ * <p>
+ * Revocations are held by the node that handled the logout and are not shared. With several nodes, a
+ * logged-out access token is still accepted by the others until it expires, at most
+ * {@code security.jwt.access-ttl-seconds} later; the refresh token is revoked in the database everywhere.
+ * Keep the access TTL short, or route each client to one node, when that window matters.
+ */
+@Slf4j
+@Component
+public class AccessTokenRevocationList {
+
+    private static final int SNAPSHOT_MAGIC = 0x52564b31; // "RVK1"
+
+    private final TokenEpochRegistry tokenEpochs;
+    private final long accessTtlSeconds;
+    private final String snapshotPath;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter currentGeneration;
+    private volatile BloomFilter previousGeneration;
+    private volatile long generationStartedAt;
+
+    public AccessTokenRevocationList(
+            TokenEpochRegistry tokenEpochs,
+            @Value("${security.jwt.access-ttl-seconds:300}") long accessTtlSeconds,
+            @Value("${security.jwt.revocation.expected-entries:100000}") int expectedEntries,
+            @Value("${security.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${security.jwt.revocation.snapshot-path:}") String snapshotPath
+    ) {
+        this.tokenEpochs = tokenEpochs;
+        this.accessTtlSeconds = accessTtlSeconds;
+        this.snapshotPath = snapshotPath;
+        this.currentGeneration = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.previousGeneration = currentGeneration.emptyCopy();
+        this.generationStartedAt = System.currentTimeMillis();
+    }
+
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null || expiresAt.isBefore(Instant.now())) {
+            return;
+        }
+        revoked.put(jti, expiresAt.getEpochSecond());
+        currentGeneration.add(jti);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        String jti = token.jti();
+        if (jti == null || (!currentGeneration.mightContain(jti) && !previousGeneration.mightContain(jti))) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt >= Instant.now().getEpochSecond();
+    }
+
+    /** Swaps Bloom generations every access TTL and drops exact entries whose tokens have expired. */
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.maintenance-interval:PT10S}")
+    public void maintain() {
+        long nowSeconds = Instant.now().getEpochSecond();
+        revoked.values().removeIf(expiresAt -> expiresAt < nowSeconds);
+        if (System.currentTimeMillis() - generationStartedAt >= accessTtlSeconds * 1000) {
+            previousGeneration = currentGeneration;
+            currentGeneration = previousGeneration.emptyCopy();
+            generationStartedAt = System.currentTimeMillis();
+        }
+        snapshot();
+    }
+
+    @PostConstruct
+    void restore() {
+        if (snapshotPath.isBlank()) {
+            return;
+        }
+        Path path = Path.of(snapshotPath);
+        if (!Files.exists(path)) {
+            return;
+        }
+        long nowSeconds = Instant.now().getEpochSecond();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring revocation snapshot {} with unknown format", path);
+                return;
+            }
+            int jtiCount = buffer.getInt();
+            int epochCount = buffer.getInt();
+            for (int i = 0; i < jtiCount; i++) {
+                long expiresAt = buffer.getLong();
+                byte[] jti = new byte[buffer.getShort()];
+                buffer.get(jti);
+                if (expiresAt >= nowSeconds) {
+                    revoke(new String(jti, StandardCharsets.UTF_8), Instant.ofEpochSecond(expiresAt));
+                }
+            }
+            for (int i = 0; i < epochCount; i++) {
+                UUID userId = new UUID(buffer.getLong(), buffer.getLong());
+                long epoch = buffer.getLong();
+                if (epoch + accessTtlSeconds * 1000 >= System.currentTimeMillis()) {
+                    tokenEpochs.restore(userId, epoch);
+                }
+            }
+            log.info("Restored {} revoked access tokens and {} user epochs from {}", revoked.size(), epochCount, path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read revocation snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void snapshot() {
+        if (snapshotPath.isBlank()) {
+            return;
+        }
+        List<Map.Entry<String, Long>> jtis = new ArrayList<>(revoked.entrySet());
+        Map<UUID, Long> epochs = tokenEpochs.entries();
+        List<byte[]> encoded = new ArrayList<>(jtis.size());
+        long size = 12;
+        for (Map.Entry<String, Long> entry : jtis) {
+            byte[] jti = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            encoded.add(jti);
+            size += 8 + 2 + jti.length;
+        }
+        size += epochs.size() * 24L;
+
+        Path target = Path.of(snapshotPath);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(jtis.size()).putInt(epochs.size());
+            for (int i = 0; i < jtis.size(); i++) {
+                buffer.putLong(jtis.get(i).getValue()).putShort((short) encoded.get(i).length).put(encoded.get(i));
+            }
+            for (Map.Entry<UUID, Long> entry : epochs.entrySet()) {
+                buffer.putLong(entry.getKey().getMostSignificantBits())
+                        .putLong(entry.getKey().getLeastSignificantBits())
+                        .putLong(entry.getValue());
+            }
+            buffer.force();
+        } catch (IOException e) {
+            log.warn("Could not write revocation snapshot {}: {}", tmp, e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not replace revocation snapshot {}: {}", target, e.getMessage());
+        }
+    }
+}
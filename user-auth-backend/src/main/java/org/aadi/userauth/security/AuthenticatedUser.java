@@ -0,0 +1,23 @@
+package org.aadi.userauth.security;
+
+import lombok.Getter;
+import org.aadi.userauth.auth.model.User;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * {@link org.springframework.security.core.userdetails.UserDetails} that also carries the {@link User} entity
+ * it was built from, so the login endpoint can issue tokens without reading the user a second time.
+ */
+@Getter
+public class AuthenticatedUser extends org.springframework.security.core.userdetails.User {
+
+    private final transient User user;
+
+    public AuthenticatedUser(User user, Collection<? extends GrantedAuthority> authorities) {
+        super(user.getEmail(), user.getPassword() == null ? "" : user.getPassword(),
+                user.isEnabled(), true, true, true, authorities);
+        this.user = user;
+    }
+}
@@ -0,0 +1,96 @@
+package org.aadi.userauth.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over strings, sized from an expected entry count and a target false-positive rate.
+ * Adds and lookups may run concurrently; entries cannot be removed, so owners replace the whole filter instead.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final int bits;
+    private final int hashes;
+
+    public BloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (expectedEntries <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Bloom filter needs expectedEntries > 0 and 0 < falsePositiveRate < 1");
+        }
+        double ln2 = Math.log(2);
+        long wanted = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bits = (int) Math.max(64, Math.min(wanted, Integer.MAX_VALUE - 63));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedEntries * ln2));
+        this.words = new AtomicLongArray((bits + 63) / 64);
+    }
+
+    /** An empty filter with the same size and hash count, for swapping in as a new generation. */
+    public BloomFilter emptyCopy() {
+        return new BloomFilter(this);
+    }
+
+    private BloomFilter(BloomFilter shape) {
+        this.bits = shape.bits;
+        this.hashes = shape.hashes;
+        this.words = new AtomicLongArray(shape.words.length());
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /** False means {@code value} was never added; true may be a false positive. */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long sizeInBytes() {
+        return words.length() * 8L;
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+
+    /** False-positive rate implied by the current fill: (set bits / bits) ^ hashes. Scans the whole array. */
+    public double estimatedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bits, hashes);
+    }
+
+    /** 64-bit FNV-1a followed by a SplitMix64 finaliser. */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 30;
+        h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 27;
+        h *= 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,39 @@
+package org.aadi.userauth.security;
+
+import org.aadi.userauth.auth.model.Role;
+import org.aadi.userauth.auth.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact, immutable view of a user holding only what authentication needs.
+ * Kept in {@link PrincipalCache} instead of the full {@link User} entity and its role set.
+ */
+public record CachedPrincipal(
+        UUID id,
+        String email,
+        boolean enabled,
+        List<String> roles
+) {
+
+    public static CachedPrincipal of(User user) {
+        List<String> roles = user.getRoles() == null ? List.of()
+                : user.getRoles().stream().map(Role::getName).toList();
+        return new CachedPrincipal(user.getId(), user.getEmail(), user.isEnabled(), roles);
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return roles.stream().map(CachedPrincipal::authority).toList();
+    }
+
+    /**
+     * The authority {@code hasRole(...)} checks for a stored role name. Roles are stored as {@code ROLE_ADMIN}
+     * (see {@link Role}) but also as plain {@code ADMIN}; the prefix is added only when it is missing.
+     */
+    public static GrantedAuthority authority(String roleName) {
+        return new SimpleGrantedAuthority(roleName.startsWith("ROLE_") ? roleName : "ROLE_" + roleName);
+    }
+}
@@ -3,7 +3,7 @@ package org.aadi.userauth.security;
 import org.aadi.userauth.auth.model.User;
 import org.aadi.userauth.auth.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
@@ -13,7 +13,7 @@ import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository users;
 
@@ -21,18 +21,25 @@ public class CustomUserDetailsService implements UserDetailsService {
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         Optional<User> maybeUser = users.findByEmail(email);
         User user = maybeUser.orElseThrow(() -> new UsernameNotFoundException("User not found with this email id:"));
-        Collection<SimpleGrantedAuthority> authorities = (user.getRoles() == null ? java.util.List.<SimpleGrantedAuthority>of()
+        Collection<GrantedAuthority> authorities = (user.getRoles() == null ? java.util.List.<GrantedAuthority>of()
                 : user.getRoles().stream()
-                    .map(r -> new SimpleGrantedAuthority("ROLE_" + r.getName()))
+                    .map(r -> CachedPrincipal.authority(r.getName()))
                     .collect(Collectors.toList()));
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword() == null ? "" : user.getPassword())
-                .authorities(authorities)
-                .disabled(!user.isEnabled())
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .build();
+        return new AuthenticatedUser(user, authorities);
+    }
+
+    /**
+     * Called by the authentication provider after a successful login whose stored hash is outdated
+     * (no {id} prefix, or a lower cost than the calibrated one); stores the rehashed password.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userDetails instanceof AuthenticatedUser authenticated
+                ? authenticated.getUser()
+                : users.findByEmail(userDetails.getUsername())
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with this email id:"));
+        user.setPassword(newPassword);
+        User saved = users.save(user);
+        return new AuthenticatedUser(saved, userDetails.getAuthorities());
     }
 }
@@ -1,12 +1,12 @@
 package org.aadi.userauth.security;
 
-import org.aadi.userauth.auth.repository.UserRepository;
 import io.jsonwebtoken.*;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -20,14 +20,23 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenEpochRegistry tokenEpochs;
+    private final AccessTokenRevocationList revocations;
+    private final PrincipalCache principalCache;
+
+    /**
+     * When true, the principal is built from the verified claims alone and the users table is not read. Tokens of a
+     * changed password or deleted account are then only stopped by the {@link TokenEpochRegistry} check, which is
+     * per node.
+     */
+    @Value("${security.jwt.claims-only-auth:false}")
+    private boolean claimsOnlyAuth;
 
     @Override
     protected void doFilterInternal(
@@ -39,21 +48,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
             try {
-                if (jwtService.isAccessToken(token) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    Jws<io.jsonwebtoken.Claims> jws = jwtService.parse(token);
-                    Claims claims = jws.getBody();
-                    UUID userId = UUID.fromString(claims.getSubject());
-                    userRepository.findById(Objects.requireNonNull(userId)).ifPresent(user -> {
-                        List<GrantedAuthority> authorities = user.getRoles() == null ? java.util.List.of()
-                                : user.getRoles().stream()
-                                .map(r -> new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + r.getName()))
-                                .collect(Collectors.toList());
-                        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                                user.getEmail(), null, authorities
-                        );
-                        auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(auth);
-                    });
+                VerifiedToken verified = tokenCache.verify(token);
+                if (verified.isAccessToken() && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    if (!tokenEpochs.isCurrent(verified) || revocations.isRevoked(verified)) {
+                        // Logged out, or password changed / account deleted after this token was issued
+                        request.setAttribute("exception", "invalid_token");
+                        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                        return;
+                    }
+                    if (claimsOnlyAuth) {
+                        List<GrantedAuthority> authorities = verified.roles().stream()
+                                .map(CachedPrincipal::authority)
+                                .toList();
+                        authenticate(request, verified.email(), authorities);
+                    } else {
+                        UUID userId = verified.subject();
+                        principalCache.findById(Objects.requireNonNull(userId))
+                                .filter(CachedPrincipal::enabled)
+                                .ifPresent(principal -> authenticate(request, principal.email(), principal.authorities()));
+                    }
                 }
             } catch (ExpiredJwtException ex) {
                 // Mark for entry point but avoid full stacktrace logging
@@ -71,6 +84,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private void authenticate(HttpServletRequest request, String email, List<GrantedAuthority> authorities) {
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                email, null, authorities
+        );
+        auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(auth);
+    }
+
 
     @Override
     protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
@@ -79,11 +100,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return switch (uri) {
             case "/api/v1/auth/login",
                  "/api/v1/auth/register",
+                 "/api/v1/auth/email-available",
                  "/api/v1/auth/refresh",
                  "/api/v1/auth/verify-otp",
                  "/api/v1/auth/forgot-password",
                  "/api/v1/auth/reset-password",
-                 "/api/v1/auth/logout" -> true;
+                 "/api/v1/auth/logout",
+                 "/.well-known/jwks.json" -> true;
             default -> false; // run filter for every other path, including /me and /change-password
         };
     }
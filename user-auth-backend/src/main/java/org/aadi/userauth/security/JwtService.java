@@ -1,6 +1,5 @@
 package org.aadi.userauth.security;
 
-import org.aadi.userauth.auth.model.Role;
 import org.aadi.userauth.auth.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
@@ -9,95 +8,132 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Date;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class JwtService {
 
+    static final String EPOCH_CLAIM = "epoch";
+
     private final SecretKey key;
+    private final SignatureAlgorithm hmacAlgorithm;
+    private final JwtParser parser;
     private final long accessTtlSeconds;
     @Getter
     private final long refreshTtlSeconds;
     private final String issuer;
+    private final TokenEpochRegistry tokenEpochs;
+    private final SigningKeyRing signingKeys;
 
     public JwtService(
             @Value("${security.jwt.secret}") String secret,
             @Value("${security.jwt.access-ttl-seconds:300}") long accessTtlSeconds,         // 5 minutes
             @Value("${security.jwt.refresh-ttl-seconds:2592000}") long refreshTtlSeconds,   // 30 days
-            @Value("${security.jwt.issuer:user-auth-backend}") String issuer
+            @Value("${security.jwt.issuer:user-auth-backend}") String issuer,
+            @Value("${security.jwt.hmac-algorithm:HS512}") String hmacAlgorithm,
+            TokenEpochRegistry tokenEpochs,
+            SigningKeyRing signingKeys
     ) {
         if (secret == null || secret.length() < 64) {
             throw new IllegalStateException("JWT secret must be at least 64 characters. Provide via env JWT_SECRET.");
         }
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.hmacAlgorithm = SignatureAlgorithm.forName(hmacAlgorithm);
+        if (!this.hmacAlgorithm.isHmac()) {
+            throw new IllegalStateException("security.jwt.hmac-algorithm must be one of HS256, HS384, HS512");
+        }
+        this.signingKeys = signingKeys;
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(new KeyResolver()).build();
         this.accessTtlSeconds = accessTtlSeconds;
         this.refreshTtlSeconds = refreshTtlSeconds;
         this.issuer = issuer;
+        this.tokenEpochs = tokenEpochs;
     }
 
     public String generateAccessToken(User user) {
+        return generateAccessToken(CachedPrincipal.of(user));
+    }
+
+    /** Issues an access token from a cached principal, so callers holding only a user id need not load the entity. */
+    public String generateAccessToken(CachedPrincipal user) {
         Instant now = Instant.now();
-        List<String> roles = user.getRoles() == null ? List.of() :
-                user.getRoles().stream().map(Role::getName).collect(Collectors.toList());
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setId(UUID.randomUUID().toString())
-                .setSubject(user.getId().toString())
+                .setSubject(user.id().toString())
                 .setIssuer(issuer)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(now.plusSeconds(accessTtlSeconds)))
                 .addClaims(Map.of(
-                        "email", user.getEmail(),
-                        "roles", roles,
-                        "typ", "access"
-                ))
-                .signWith(key, SignatureAlgorithm.HS512)
-                .compact();
+                        "email", user.email(),
+                        "roles", user.roles(),
+                        "typ", VerifiedToken.TYPE_ACCESS,
+                        EPOCH_CLAIM, tokenEpochs.currentEpoch(user.id())
+                ));
+        if (signingKeys.isEnabled()) {
+            SigningKeyRing.SigningKey signingKey = signingKeys.active();
+            return builder
+                    .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                    .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
+                    .compact();
+        }
+        return builder.signWith(key, hmacAlgorithm).compact();
     }
 
-    public String generateRefreshToken(User user, String jti) {
-        Instant now = Instant.now();
+    /**
+     * Signs a refresh token expiring at {@code expiresAt}, the {@code expires_at} stored in its row. Whole seconds,
+     * since {@code exp} has no finer resolution: the claim then names the row's partition exactly.
+     */
+    public String generateRefreshToken(UUID userId, String jti, Instant expiresAt) {
         return Jwts.builder()
                 .setId(jti)
-                .setSubject(user.getId().toString())
+                .setSubject(userId.toString())
                 .setIssuer(issuer)
-                .setIssuedAt(Date.from(now))
-                .setExpiration(Date.from(now.plusSeconds(refreshTtlSeconds)))
-                .claim("typ", "refresh")
-                .signWith(key, SignatureAlgorithm.HS512)
+                .setIssuedAt(new Date())
+                .setExpiration(Date.from(expiresAt))
+                .claim("typ", VerifiedToken.TYPE_REFRESH)
+                .signWith(key, hmacAlgorithm)
                 .compact();
     }
 
     public Jws<Claims> parse(String token) {
-        try {
-            return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-        } catch (JwtException e) {
-            throw e;
-        }
+        return parser.parseClaimsJws(token);
     }
 
-    public boolean isAccessToken(String token) {
-        Claims c = parse(token).getBody();
-        return "access".equals(c.get("typ"));
-    }
-
-    public boolean isRefreshToken(String token) {
-        Claims c = parse(token).getBody();
-        return "refresh".equals(c.get("typ"));
-    }
-
-    public UUID getUserId(String token) {
-        Claims c = parse(token).getBody();
-        return UUID.fromString(c.getSubject());
+    /**
+     * Verifies the signature and expiry of {@code token} exactly once and returns its typed claims.
+     * Callers should keep the result rather than re-verifying the same token for individual claims.
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = parse(token).getBody();
+        try {
+            return VerifiedToken.from(claims);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new MalformedJwtException("Token claims are malformed", e);
+        }
     }
 
-    public String getJti(String token) {
-        return parse(token).getBody().getId();
+    /**
+     * Picks the verification key from the header: the shared secret for HMAC tokens (all refresh tokens and
+     * HMAC-signed access tokens), otherwise a direct {@code kid} lookup in the key ring.
+     */
+    private class KeyResolver extends SigningKeyResolverAdapter {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String alg = header.getAlgorithm();
+            if (alg != null && alg.startsWith("HS")) {
+                return key;
+            }
+            Key publicKey = signingKeys.verificationKey(header.getKeyId());
+            if (publicKey == null) {
+                throw new UnsupportedJwtException("Unknown signing key id");
+            }
+            return publicKey;
+        }
     }
 
 }
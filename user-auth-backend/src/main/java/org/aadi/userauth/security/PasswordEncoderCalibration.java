@@ -0,0 +1,88 @@
+package org.aadi.userauth.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Builds the {@code {id}}-prefixed {@link DelegatingPasswordEncoder} with work factors measured on this machine.
+ * <p>
+ * At startup each algorithm's cost is raised step by step while one hash still fits the latency budget, so
+ * login CPU time stays roughly constant across instance types. Hashes without a prefix (everything stored
+ * before this encoder existed) are plain BCrypt and still match. Because {@code upgradeEncoding} reports them,
+ * and any hash weaker than the calibrated cost, as outdated, they are rehashed on the next successful login
+ * (see {@link CustomUserDetailsService#updatePassword}).
+ */
+@Slf4j
+public final class PasswordEncoderCalibration {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+
+    private static final String SAMPLE_PASSWORD = "Calibrate-Me-42!";
+    private static final int MAX_BCRYPT_COST = 16;
+    private static final int MIN_ARGON2_ITERATIONS = 2;
+    private static final int MAX_ARGON2_ITERATIONS = 10;
+
+    private PasswordEncoderCalibration() {
+    }
+
+    public static PasswordEncoder delegating(String idForEncode, long latencyBudgetMs, int minBcryptCost, int argon2MemoryKib) {
+        // Only the algorithm that writes new hashes needs calibrating; the other one only verifies,
+        // and its hashes are upgraded on login anyway because their id differs
+        int bcryptCost = !BCRYPT.equals(idForEncode) ? minBcryptCost
+                : calibrate(BCRYPT, minBcryptCost, MAX_BCRYPT_COST, latencyBudgetMs, BCryptPasswordEncoder::new);
+        int argon2Iterations = !ARGON2.equals(idForEncode) ? MIN_ARGON2_ITERATIONS
+                : calibrate(ARGON2, MIN_ARGON2_ITERATIONS, MAX_ARGON2_ITERATIONS, latencyBudgetMs,
+                        iterations -> argon2(argon2MemoryKib, iterations));
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptCost);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                BCRYPT, bcrypt,
+                ARGON2, argon2(argon2MemoryKib, argon2Iterations));
+        if (!encoders.containsKey(idForEncode)) {
+            throw new IllegalStateException("app.password.encoding.algorithm must be one of " + encoders.keySet());
+        }
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(idForEncode, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        log.info("Password hashing: new hashes use {} (bcrypt cost {}, argon2 {} KiB x {} iterations, budget {} ms)",
+                idForEncode, bcryptCost, argon2MemoryKib, argon2Iterations, latencyBudgetMs);
+        return delegating;
+    }
+
+    private static Argon2PasswordEncoder argon2(int memoryKib, int iterations) {
+        return new Argon2PasswordEncoder(16, 32, 1, memoryKib, iterations);
+    }
+
+    /** Highest cost in [min, max] whose hash time stays within the budget; {@code min} if even that is slower. */
+    private static int calibrate(String name, int min, int max, long budgetMs, IntFunction<PasswordEncoder> encoderForCost) {
+        int chosen = min;
+        for (int cost = min; cost <= max; cost++) {
+            long millis = measureMillis(encoderForCost.apply(cost));
+            if (millis > budgetMs) {
+                if (cost == min) {
+                    log.warn("{} at minimum cost {} takes {} ms, above the {} ms budget", name, min, millis, budgetMs);
+                }
+                break;
+            }
+            chosen = cost;
+        }
+        return chosen;
+    }
+
+    /** Best of three runs, so a GC pause or JIT warm-up does not push the cost down. */
+    private static long measureMillis(PasswordEncoder encoder) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+        }
+        return best;
+    }
+}
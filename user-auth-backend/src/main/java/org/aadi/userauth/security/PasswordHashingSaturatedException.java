@@ -0,0 +1,17 @@
+package org.aadi.userauth.security;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the password hashing pool has no queue space left; mapped to 429 with a Retry-After header.
+ */
+@Getter
+public class PasswordHashingSaturatedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingSaturatedException(long retryAfterSeconds) {
+        super("Too many password operations in progress, please retry shortly");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,109 @@
+package org.aadi.userauth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.auth.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * In-process cache of {@link CachedPrincipal}s, looked up by user id or by email.
+ * <p>
+ * Every code path that changes a user's email, enabled flag, roles or password must call
+ * {@link #invalidate(UUID, String)}. Inside a transaction the entry is evicted again after commit so that
+ * a concurrent reader cannot re-populate it with the pre-commit row.
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, CachedPrincipal> byId;
+    private final Cache<String, UUID> idByEmail;
+
+    public PrincipalCache(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.principal-cache.max-size:100000}") long maxSize,
+            @Value("${app.principal-cache.ttl-seconds:600}") long ttlSeconds
+    ) {
+        this.userRepository = userRepository;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "principals");
+        Gauge.builder("principal.cache.hit.ratio", byId, c -> c.stats().hitRate())
+                .description("Share of principal lookups served without a users query")
+                .register(meterRegistry);
+        log.info("Principal cache max-size={}, ttl={}s", maxSize, ttlSeconds);
+    }
+
+    public Optional<CachedPrincipal> findById(UUID id) {
+        CachedPrincipal cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return userRepository.findById(id).map(this::put);
+    }
+
+    public Optional<CachedPrincipal> findByEmail(String email) {
+        UUID id = idByEmail.getIfPresent(email);
+        if (id != null) {
+            CachedPrincipal cached = byId.getIfPresent(id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        return userRepository.findByEmail(email).map(this::put);
+    }
+
+    /** Stores the principal for an entity that was already loaded by another path. */
+    public CachedPrincipal put(User user) {
+        CachedPrincipal principal = CachedPrincipal.of(user);
+        byId.put(principal.id(), principal);
+        idByEmail.put(principal.email(), principal.id());
+        return principal;
+    }
+
+    public void invalidate(UUID id, String email) {
+        evict(id, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id, email);
+                }
+            });
+        }
+    }
+
+    public void invalidate(User user) {
+        invalidate(user.getId(), user.getEmail());
+    }
+
+    private void evict(UUID id, String email) {
+        if (id != null) {
+            byId.invalidate(id);
+        }
+        if (email != null) {
+            idByEmail.invalidate(email);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.aadi.userauth.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.aadi.userauth.auth.model.JwtSigningKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * ES256 key pairs used to sign access tokens when {@code security.jwt.signing.algorithm=ES256}.
+ * <p>
+ * Three kinds of keys are published in the JWKS document: the active signing key, the next key (published one
+ * rotation ahead so that resource servers with a cached JWKS already know it when it starts signing) and retired
+ * keys, which stay verifiable until every access token they signed has expired.
+ * <p>
+ * The keys live in the {@code jwt_signing_keys} table, so every instance signs with the same key and serves the
+ * same JWKS, and tokens survive restarts. Each instance re-reads the table every sync interval; rotation happens
+ * inside {@link SigningKeyStore#synchronize} under a database lock, so only one instance rotates. Private keys
+ * are sealed with AES-GCM under a key derived from {@code security.jwt.secret}: changing the secret makes stored
+ * keys unreadable, and the ring then refuses to start rather than silently signing with a new key set.
+ */
+@Slf4j
+@Component
+public class SigningKeyRing {
+
+    public static final String ALGORITHM = "ES256";
+
+    private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+
+    private final boolean enabled;
+    private final SigningKeyStore store;
+    private final Duration rotationInterval;
+    private final Duration retiredFor;
+    private final SecretKeySpec sealingKey;
+    private final SecureRandom random = new SecureRandom();
+    private volatile Map<String, SigningKey> keysByKid = Map.of();
+    private volatile SigningKey active;
+
+    public SigningKeyRing(
+            SigningKeyStore store,
+            @Value("${security.jwt.signing.algorithm:HS512}") String algorithm,
+            @Value("${security.jwt.secret}") String secret,
+            @Value("${security.jwt.access-ttl-seconds:300}") long accessTtlSeconds,
+            @Value("${security.jwt.signing.rotation-interval:PT24H}") Duration rotationInterval,
+            @Value("${security.jwt.signing.sync-interval:PT1M}") Duration syncInterval
+    ) {
+        this.enabled = ALGORITHM.equalsIgnoreCase(algorithm);
+        this.store = store;
+        this.rotationInterval = rotationInterval;
+        // Another instance may keep signing with a just-retired key until its next sync
+        this.retiredFor = Duration.ofSeconds(accessTtlSeconds).plus(syncInterval);
+        this.sealingKey = new SecretKeySpec(sha256("jwt-signing-keys:" + secret), "AES");
+    }
+
+    @PostConstruct
+    void load() {
+        if (enabled) {
+            synchronize();
+            log.info("Access tokens signed with {} (active kid={})", ALGORITHM, active.kid());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public SigningKey active() {
+        return active;
+    }
+
+    /** Public key for {@code kid}, or {@code null} if it is unknown or has been purged. */
+    public Key verificationKey(String kid) {
+        SigningKey key = kid == null ? null : keysByKid.get(kid);
+        return key == null ? null : key.keyPair().getPublic();
+    }
+
+    /**
+     * Re-reads the shared key ring, rotating it first if the active key is due: the pre-published key is
+     * promoted, a fresh next key is published and the outgoing key stays verifiable for one more access TTL.
+     */
+    @Scheduled(
+            fixedDelayString = "${security.jwt.signing.sync-interval:PT1M}",
+            initialDelayString = "${security.jwt.signing.sync-interval:PT1M}")
+    public void synchronize() {
+        if (!enabled) {
+            return;
+        }
+        List<JwtSigningKey> stored = store.synchronize(Instant.now(), rotationInterval, retiredFor, this::generate);
+        Map<String, SigningKey> loaded = new LinkedHashMap<>();
+        SigningKey loadedActive = null;
+        for (JwtSigningKey row : stored) {
+            SigningKey key = open(row);
+            loaded.put(key.kid(), key);
+            if (row.getStatus() == JwtSigningKey.Status.ACTIVE) {
+                loadedActive = key;
+            }
+        }
+        if (loadedActive == null) {
+            throw new IllegalStateException("Signing key ring has no active key");
+        }
+        if (active != null && !active.kid().equals(loadedActive.kid())) {
+            log.info("Access token signing key is now kid={}", loadedActive.kid());
+        }
+        keysByKid = Collections.unmodifiableMap(loaded);
+        active = loadedActive;
+    }
+
+    /** Public keys of every key that may sign or has signed a still-valid token, as JWK objects. */
+    public List<Map<String, Object>> publicJwks() {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (SigningKey key : keysByKid.values()) {
+            ECPublicKey pub = (ECPublicKey) key.keyPair().getPublic();
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("use", "sig");
+            jwk.put("alg", ALGORITHM);
+            jwk.put("kid", key.kid());
+            jwk.put("x", coordinate(pub.getW().getAffineX()));
+            jwk.put("y", coordinate(pub.getW().getAffineY()));
+            jwks.add(jwk);
+        }
+        return jwks;
+    }
+
+    private static String coordinate(BigInteger value) {
+        byte[] raw = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int copy = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - copy, fixed, 32 - copy, copy);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    private JwtSigningKey generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair pair = generator.generateKeyPair();
+            return JwtSigningKey.builder()
+                    .kid(UUID.randomUUID().toString())
+                    .publicKey(pair.getPublic().getEncoded())
+                    .sealedPrivateKey(seal(pair.getPrivate().getEncoded()))
+                    .build();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to generate ES256 signing key", e);
+        }
+    }
+
+    private SigningKey open(JwtSigningKey row) {
+        try {
+            KeyFactory factory = KeyFactory.getInstance("EC");
+            KeyPair pair = new KeyPair(
+                    factory.generatePublic(new X509EncodedKeySpec(row.getPublicKey())),
+                    factory.generatePrivate(new PKCS8EncodedKeySpec(unseal(row.getSealedPrivateKey()))));
+            return new SigningKey(row.getKid(), pair, row.getRetireAt());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot read signing key kid=" + row.getKid()
+                    + "; was security.jwt.secret changed?", e);
+        }
+    }
+
+    private byte[] seal(byte[] plain) throws GeneralSecurityException {
+        byte[] iv = new byte[GCM_IV_BYTES];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, sealingKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+        byte[] sealed = cipher.doFinal(plain);
+        byte[] out = Arrays.copyOf(iv, GCM_IV_BYTES + sealed.length);
+        System.arraycopy(sealed, 0, out, GCM_IV_BYTES, sealed.length);
+        return out;
+    }
+
+    private byte[] unseal(byte[] sealed) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, sealingKey, new GCMParameterSpec(GCM_TAG_BITS, sealed, 0, GCM_IV_BYTES));
+        return cipher.doFinal(sealed, GCM_IV_BYTES, sealed.length - GCM_IV_BYTES);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record SigningKey(String kid, KeyPair keyPair, Instant retireAt) {
+
+        public PrivateKey privateKey() {
+            return keyPair.getPrivate();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.aadi.userauth.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aadi.userauth.auth.model.JwtSigningKey;
+import org.aadi.userauth.auth.model.JwtSigningKey.Status;
+import org.aadi.userauth.auth.repository.JwtSigningKeyRepository;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The shared state behind {@link SigningKeyRing}. Every instance calls {@link #synchronize} periodically; the
+ * first caller after a key is due rotates it, under a database lock, and the others just read the result.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SigningKeyStore {
+
+    private final JwtSigningKeyRepository repository;
+
+    /**
+     * Makes sure there is exactly one active and one next key, rotates the active key once it has signed for
+     * {@code rotationInterval}, drops retired keys whose tokens have all expired, and returns the remaining keys.
+     */
+    @Transactional
+    public List<JwtSigningKey> synchronize(Instant now, Duration rotationInterval, Duration retiredFor,
+                                           Supplier<JwtSigningKey> generator) {
+        repository.lockKeyRing();
+        repository.deleteRetiredBefore(now);
+        List<JwtSigningKey> keys = repository.findAll();
+        JwtSigningKey active = withStatus(keys, Status.ACTIVE);
+        JwtSigningKey next = withStatus(keys, Status.NEXT);
+
+        if (active != null && !active.getActivatedAt().plus(rotationInterval).isAfter(now)) {
+            active.setStatus(Status.RETIRED);
+            active.setRetireAt(now.plus(retiredFor));
+            log.info("Retiring access token signing key kid={}", active.getKid());
+            active = null;
+        }
+        if (active == null) {
+            active = next != null ? next : repository.save(created(generator, now));
+            active.setStatus(Status.ACTIVE);
+            active.setActivatedAt(now);
+            next = null;
+            log.info("Access token signing key kid={} is now active", active.getKid());
+        }
+        if (next == null) {
+            repository.save(created(generator, now));
+        }
+        // Same order on every instance, so they all serve an identical JWKS document
+        return repository.findAll(Sort.by("createdAt", "kid"));
+    }
+
+    private static JwtSigningKey created(Supplier<JwtSigningKey> generator, Instant now) {
+        JwtSigningKey key = generator.get();
+        key.setStatus(Status.NEXT);
+        key.setCreatedAt(now);
+        return key;
+    }
+
+    private static JwtSigningKey withStatus(List<JwtSigningKey> keys, Status status) {
+        return keys.stream().filter(k -> k.getStatus() == status).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,58 @@
+package org.aadi.userauth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory table of per-user token epochs used to revoke access tokens without a database lookup.
+ * <p>
+ * Every access token carries the user's epoch at issue time. Advancing a user's epoch (password change,
+ * account deletion) makes all of their previously issued access tokens fail {@link #isCurrent}. An entry
+ * only needs to outlive the access tokens it invalidates, so it is dropped after the access TTL and the
+ * table stays proportional to recent revocations rather than to the user base.
+ * <p>
+ * Epochs are advanced on the node that handled the change only; other nodes keep accepting the older access
+ * tokens until they expire, as with {@link AccessTokenRevocationList}.
+ */
+@Component
+public class TokenEpochRegistry {
+
+    private final Cache<UUID, Long> epochs;
+
+    public TokenEpochRegistry(@Value("${security.jwt.access-ttl-seconds:300}") long accessTtlSeconds) {
+        this.epochs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(accessTtlSeconds))
+                .build();
+    }
+
+    /** Epoch to embed in a new access token for this user. */
+    public long currentEpoch(UUID userId) {
+        Long epoch = epochs.getIfPresent(userId);
+        return epoch == null ? 0L : epoch;
+    }
+
+    /** Invalidates every access token issued to this user so far. */
+    public void advance(UUID userId) {
+        long now = System.currentTimeMillis();
+        epochs.asMap().merge(userId, now, (current, candidate) -> Math.max(current + 1, candidate));
+    }
+
+    public boolean isCurrent(VerifiedToken token) {
+        return token.epoch() >= currentEpoch(token.subject());
+    }
+
+    /** Live entries, for {@link AccessTokenRevocationList} snapshots. */
+    Map<UUID, Long> entries() {
+        return Map.copyOf(epochs.asMap());
+    }
+
+    void restore(UUID userId, long epoch) {
+        epochs.asMap().merge(userId, epoch, Math::max);
+    }
+}
@@ -0,0 +1,50 @@
+package org.aadi.userauth.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Claims of a token whose signature and expiry have already been checked by {@link JwtService#verify(String)}.
+ * Pass this around instead of the compact string so the same token is never verified twice in one request.
+ */
+public record VerifiedToken(
+        String type,
+        String jti,
+        UUID subject,
+        String email,
+        List<String> roles,
+        long epoch,
+        Instant expiresAt
+) {
+
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
+    static VerifiedToken from(Claims claims) {
+        Object rawRoles = claims.get("roles");
+        List<String> roles = rawRoles instanceof List<?> list
+                ? list.stream().map(String::valueOf).toList()
+                : List.of();
+        Object rawEpoch = claims.get(JwtService.EPOCH_CLAIM);
+        return new VerifiedToken(
+                claims.get("typ", String.class),
+                claims.getId(),
+                UUID.fromString(claims.getSubject()),
+                claims.get("email", String.class),
+                roles,
+                rawEpoch instanceof Number n ? n.longValue() : 0L,
+                claims.getExpiration().toInstant()
+        );
+    }
+
+    public boolean isAccessToken() {
+        return TYPE_ACCESS.equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return TYPE_REFRESH.equals(type);
+    }
+}
@@ -0,0 +1,100 @@
+package org.aadi.userauth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Bounded cache of {@link VerifiedToken}s in front of {@link JwtService#verify(String)}.
+ * <p>
+ * Keys are the SHA-256 of the compact token, so raw bearer tokens are never kept in memory, and every
+ * entry expires no later than the token's own {@code exp}. Expired or invalid tokens are never cached;
+ * they go through full verification and fail there as before.
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtService jwtService;
+    private final boolean enabled;
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(
+            JwtService jwtService,
+            MeterRegistry meterRegistry,
+            @Value("${security.jwt.token-cache.enabled:true}") boolean enabled,
+            @Value("${security.jwt.token-cache.max-size:10000}") long maxSize,
+            @Value("${security.jwt.token-cache.max-ttl-seconds:300}") long maxTtlSeconds
+    ) {
+        this.jwtService = jwtService;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry(Duration.ofSeconds(maxTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+        log.info("Verified token cache {} (max-size={}, max-ttl={}s)", enabled ? "enabled" : "disabled", maxSize, maxTtlSeconds);
+    }
+
+    /**
+     * Returns the verified claims for {@code token}, verifying it with {@link JwtService} only on a cache miss.
+     */
+    public VerifiedToken verify(String token) {
+        if (!enabled) {
+            return jwtService.verify(token);
+        }
+        String key = digest(token);
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        VerifiedToken verified = jwtService.verify(token);
+        cache.put(key, verified);
+        return verified;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Expires each entry at the earlier of the token's {@code exp} and the configured maximum TTL. */
+    private record UntilTokenExpiry(Duration maxTtl) implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            Duration untilExp = Duration.between(Instant.now(), token.expiresAt());
+            if (untilExp.isNegative()) {
+                return 0;
+            }
+            return (untilExp.compareTo(maxTtl) < 0 ? untilExp : maxTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
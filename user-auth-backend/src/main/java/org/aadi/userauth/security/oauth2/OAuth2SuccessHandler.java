@@ -1,10 +1,9 @@
 package org.aadi.userauth.security.oauth2;
 
 import org.aadi.userauth.auth.model.Provider;
-import org.aadi.userauth.auth.model.RefreshToken;
 import org.aadi.userauth.auth.model.User;
-import org.aadi.userauth.auth.repository.RefreshTokenRepository;
 import org.aadi.userauth.auth.service.CookieService;
+import org.aadi.userauth.auth.service.RefreshTokenService;
 import org.aadi.userauth.auth.service.UserService;
 import org.aadi.userauth.security.JwtService;
 import jakarta.servlet.ServletException;
@@ -20,9 +19,6 @@ import org.springframework.security.web.authentication.AuthenticationSuccessHand
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.time.Instant;
-import java.util.Objects;
-import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
@@ -34,7 +30,7 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
 
     private final CookieService cookieService;
 
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenService refreshTokenService;
 
     @Value("${app.auth.success-redirect}")
     private String fronendRedirectURL;
@@ -81,21 +77,8 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
         }
 
         // Issue tokens
-        String jti = UUID.randomUUID().toString();
-
-        RefreshToken refreshToken1 = RefreshToken.builder()
-                .jti(jti)
-                .user(user)
-                .revoked(false)
-                .createdAt(Instant.now())
-                .expiresAt(Instant.now().plusSeconds(jwtService.getRefreshTtlSeconds()))
-                .build();
-
-        refreshTokenRepository.save(Objects.requireNonNull(refreshToken1));
-
-        // Generate JWT access and refresh tokens
+        String refreshToken = refreshTokenService.issue(user);
         String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = jwtService.generateRefreshToken(user, jti);
         // Attach refresh token as HttpOnly cookie
         cookieService.attachRefreshCookie(response, refreshToken, (int) jwtService.getRefreshTtlSeconds());
         // Optionally, send access token in response header for client use
@@ -0,0 +1,140 @@
+package org.aadi.userauth.security.password;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Offline lookup of breached passwords in a sorted file of raw 20-byte SHA-1 digests
+ * (see {@link BreachedPasswordIndexBuilder} to produce one from the HIBP "ordered by hash" download).
+ * <p>
+ * The file is memory-mapped read-only and searched with a binary search that compares records in place,
+ * so a lookup is about log2(n) page reads (~30 for a billion entries) and allocates only the digest.
+ * Files larger than 2 GB are mapped as several segments aligned to whole records.
+ */
+@Slf4j
+@Component
+public class BreachedPasswordIndex {
+
+    static final int RECORD_BYTES = 20;
+    /** Most records whose bytes fit a single mapping. */
+    private static final long MAX_RECORDS_PER_SEGMENT = Integer.MAX_VALUE / RECORD_BYTES;
+
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    });
+
+    @Value("${app.password.breached-index-path:}")
+    private String indexPath;
+
+    private final long recordsPerSegment;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private long recordCount;
+
+    public BreachedPasswordIndex() {
+        this.recordsPerSegment = MAX_RECORDS_PER_SEGMENT;
+    }
+
+    /** Opens {@code indexPath} in segments of {@code recordsPerSegment} records, so tests can span several. */
+    BreachedPasswordIndex(String indexPath, long recordsPerSegment) throws IOException {
+        this.indexPath = indexPath;
+        this.recordsPerSegment = recordsPerSegment;
+        open();
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (indexPath == null || indexPath.isBlank()) {
+            log.info("Breached password index disabled (app.password.breached-index-path not set)");
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(Path.of(indexPath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % RECORD_BYTES != 0) {
+                throw new IllegalStateException("Breached password index " + indexPath
+                        + " is not a whole number of " + RECORD_BYTES + "-byte records");
+            }
+            long segmentBytes = recordsPerSegment * RECORD_BYTES;
+            int count = (int) ((size + segmentBytes - 1) / segmentBytes);
+            MappedByteBuffer[] mapped = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long offset = i * segmentBytes;
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(segmentBytes, size - offset));
+            }
+            this.segments = mapped;
+            this.recordCount = size / RECORD_BYTES;
+        }
+        log.info("Breached password index loaded: {} entries from {}", recordCount, indexPath);
+    }
+
+    public boolean isEnabled() {
+        return recordCount > 0;
+    }
+
+    public boolean contains(String password) {
+        if (recordCount == 0) {
+            return false;
+        }
+        MessageDigest sha1 = SHA1.get();
+        byte[] digest = sha1.digest(password.getBytes(StandardCharsets.UTF_8));
+        long hi = readLong(digest, 0);
+        long mid = readLong(digest, 8);
+        int lo = readInt(digest, 16);
+
+        long low = 0;
+        long high = recordCount - 1;
+        while (low <= high) {
+            long probe = (low + high) >>> 1;
+            int cmp = compare(probe, hi, mid, lo);
+            if (cmp < 0) {
+                low = probe + 1;
+            } else if (cmp > 0) {
+                high = probe - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Compares the record at {@code index} with the digest given as two longs and an int, unsigned. */
+    private int compare(long index, long hi, long mid, int lo) {
+        MappedByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+        int offset = (int) ((index % recordsPerSegment) * RECORD_BYTES);
+        int cmp = Long.compareUnsigned(segment.getLong(offset), hi);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Long.compareUnsigned(segment.getLong(offset + 8), mid);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Integer.compareUnsigned(segment.getInt(offset + 16), lo);
+    }
+
+    private static long readLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[off + i] & 0xFF);
+        }
+        return v;
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return ((b[off] & 0xFF) << 24) | ((b[off + 1] & 0xFF) << 16) | ((b[off + 2] & 0xFF) << 8) | (b[off + 3] & 0xFF);
+    }
+}
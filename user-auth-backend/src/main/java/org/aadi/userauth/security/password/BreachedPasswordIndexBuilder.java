@@ -0,0 +1,57 @@
+package org.aadi.userauth.security.password;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Converts a HIBP "SHA-1, ordered by hash" text file ({@code HEX40:count} per line) into the binary format
+ * read by {@link BreachedPasswordIndex}. Streams line by line, so any input size works.
+ * <pre>
+ * java -cp user-auth-backend.jar -Dloader.main=org.aadi.userauth.security.password.BreachedPasswordIndexBuilder \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher pwned-passwords-sha1-ordered-by-hash.txt breached.bin
+ * </pre>
+ */
+public final class BreachedPasswordIndexBuilder {
+
+    private BreachedPasswordIndexBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: BreachedPasswordIndexBuilder <hibp-sha1-ordered.txt> <output.bin>");
+            System.exit(2);
+        }
+        long written = build(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("Wrote " + written + " entries to " + args[1]);
+    }
+
+    static long build(Path input, Path output) throws IOException {
+        HexFormat hex = HexFormat.of();
+        byte[] previous = null;
+        long written = 0;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.US_ASCII);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 1 << 20)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() < 40) {
+                    continue;
+                }
+                byte[] digest = hex.parseHex(line, 0, 40);
+                if (previous != null && Arrays.compareUnsigned(previous, digest) >= 0) {
+                    throw new IllegalArgumentException("Input is not sorted by hash near line " + (written + 1));
+                }
+                out.write(digest);
+                previous = digest;
+                written++;
+            }
+        }
+        return written;
+    }
+}
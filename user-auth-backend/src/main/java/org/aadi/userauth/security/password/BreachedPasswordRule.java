@@ -0,0 +1,27 @@
+package org.aadi.userauth.security.password;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Rejects passwords that appear in the local breached-password index. Runs after the cheap composition
+ * checks so only otherwise-acceptable passwords are hashed and looked up.
+ */
+@Component
+@Order(200)
+@RequiredArgsConstructor
+public class BreachedPasswordRule implements PasswordRule {
+
+    private final BreachedPasswordIndex index;
+
+    @Override
+    public Optional<String> check(String password, PasswordCharacteristics characteristics) {
+        if (index.contains(password)) {
+            return Optional.of("This password has appeared in a known data breach. Please choose a different one.");
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,38 @@
+package org.aadi.userauth.security.password;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Minimum length plus at least one uppercase letter, lowercase letter, digit and special character.
+ */
+@Component
+@Order(100)
+public class CompositionRule implements PasswordRule {
+
+    @Value("${app.password.min-length:8}")
+    private int minPasswordLength;
+
+    @Override
+    public Optional<String> check(String password, PasswordCharacteristics c) {
+        if (c.length() < minPasswordLength) {
+            return Optional.of(String.format("Password must be at least %d characters long", minPasswordLength));
+        }
+        if (c.upper() == 0) {
+            return Optional.of("Password must contain at least one uppercase letter (A-Z)");
+        }
+        if (c.lower() == 0) {
+            return Optional.of("Password must contain at least one lowercase letter (a-z)");
+        }
+        if (c.digits() == 0) {
+            return Optional.of("Password must contain at least one digit (0-9)");
+        }
+        if (c.special() == 0) {
+            return Optional.of("Password must contain at least one special character (!@#$%^&*()_+-=[]{};':\"\\|,.<>/?)");
+        }
+        return Optional.empty();
+    }
+}
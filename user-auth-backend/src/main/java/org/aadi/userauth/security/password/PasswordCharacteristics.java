@@ -0,0 +1,27 @@
+package org.aadi.userauth.security.password;
+
+/**
+ * Character class counts of a password, computed in one pass so rules never rescan or run regexes.
+ */
+public record PasswordCharacteristics(int length, int upper, int lower, int digits, int special) {
+
+    /** Same set the previous regex accepted: !@#$%^&*()_+-=[]{};':"\|,.<>/? */
+    private static final String SPECIALS = "!@#$%^&*()_+-=[]{};':\"\\|,.<>/?";
+
+    public static PasswordCharacteristics of(String password) {
+        int upper = 0, lower = 0, digits = 0, special = 0;
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                upper++;
+            } else if (c >= 'a' && c <= 'z') {
+                lower++;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (SPECIALS.indexOf(c) >= 0) {
+                special++;
+            }
+        }
+        return new PasswordCharacteristics(password.length(), upper, lower, digits, special);
+    }
+}
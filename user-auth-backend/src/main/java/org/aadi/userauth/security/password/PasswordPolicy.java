@@ -0,0 +1,33 @@
+package org.aadi.userauth.security.password;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Applies every {@link PasswordRule} bean to a candidate password after a single scan of its characters.
+ */
+@Service
+@RequiredArgsConstructor
+public class PasswordPolicy {
+
+    private final List<PasswordRule> rules;
+
+    /**
+     * @throws ResponseStatusException 400 with the first violated rule's message
+     */
+    public void validate(String password) {
+        if (password == null || password.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Password is required");
+        }
+        PasswordCharacteristics characteristics = PasswordCharacteristics.of(password);
+        for (PasswordRule rule : rules) {
+            rule.check(password, characteristics).ifPresent(message -> {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+            });
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.aadi.userauth.security.password;
+
+import java.util.Optional;
+
+/**
+ * One check of the password policy. Implementations are Spring beans, applied by {@link PasswordPolicy}
+ * in {@link org.springframework.core.annotation.Order} order; the first violation wins.
+ */
+public interface PasswordRule {
+
+    /**
+     * @param password        the candidate password
+     * @param characteristics character class counts gathered in the policy's single pass over {@code password}
+     * @return a user-facing message if the password violates this rule
+     */
+    Optional<String> check(String password, PasswordCharacteristics characteristics);
+}
@@ -0,0 +1,100 @@
+-- Schema of user-auth-backend as of the move to Flyway. Later changes go into new V<n>__*.sql files; a
+-- migration that has run is never edited.
+-- Flyway baselines a database without its history table at version 0, so this also runs once against a schema
+-- created by the former startup script or ddl-auto: update, and must stay idempotent: CREATE ... IF NOT EXISTS,
+-- ADD COLUMN IF NOT EXISTS. A varchar(64) jti from ddl-auto: update is rejected before migrating
+-- (SchemaMigrationConfig); db/refresh_tokens_uuid_jti.sql converts it.
+
+CREATE TABLE IF NOT EXISTS users (
+    id          uuid                        NOT NULL PRIMARY KEY,
+    provider_id varchar(255),
+    email       varchar(255)                NOT NULL UNIQUE,
+    name        varchar(255),
+    password    varchar(255),
+    image       varchar(255),
+    mobile      varchar(255),
+    enabled     boolean                     NOT NULL,
+    created_at  timestamp(6) with time zone,
+    updated_at  timestamp(6) with time zone,
+    provider    varchar(255) CHECK (provider IN ('LOCAL', 'GOOGLE', 'GITHUB'))
+);
+
+CREATE TABLE IF NOT EXISTS roles (
+    id   uuid         NOT NULL PRIMARY KEY,
+    name varchar(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id uuid NOT NULL REFERENCES users (id),
+    role_id uuid NOT NULL REFERENCES roles (id),
+    PRIMARY KEY (role_id, user_id)
+);
+
+-- refresh_tokens_partitioned.sql replaces this table with one partitioned by expires_at
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id                 uuid                        NOT NULL PRIMARY KEY,
+    jti                uuid                        NOT NULL,
+    user_id            uuid                        NOT NULL REFERENCES users (id),
+    created_at         timestamp(6) with time zone NOT NULL DEFAULT now(),
+    session_started_at timestamp(6) with time zone DEFAULT now(),
+    expires_at         timestamp(6) with time zone NOT NULL,
+    revoked            boolean                     NOT NULL,
+    replaced_by_token  uuid,
+    -- Covering, so jti probes for the owner and validity of a token are index-only scans. Declared here
+    -- rather than as CREATE UNIQUE INDEX IF NOT EXISTS, which a partitioned table rejects before the name check
+    CONSTRAINT idx_rt_jti UNIQUE (jti) INCLUDE (user_id, revoked, expires_at)
+);
+
+CREATE INDEX IF NOT EXISTS idx_rt_user_created ON refresh_tokens (user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_rt_expiry ON refresh_tokens (expires_at);
+
+CREATE TABLE IF NOT EXISTS otps (
+    id         uuid                        NOT NULL PRIMARY KEY,
+    email      varchar(255)                NOT NULL,
+    code       varchar(6)                  NOT NULL,
+    type       varchar(255)                NOT NULL CHECK (type IN ('REGISTER', 'RESET')),
+    expires_at timestamp(6) with time zone NOT NULL,
+    used       boolean                     NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_otp_email_type ON otps (email, type);
+CREATE INDEX IF NOT EXISTS idx_otp_expiry ON otps (expires_at);
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id              uuid                        NOT NULL PRIMARY KEY,
+    recipient       varchar(255)                NOT NULL,
+    subject         varchar(255)                NOT NULL,
+    body            text                        NOT NULL,
+    status          varchar(16)                 NOT NULL CHECK (status IN ('PENDING', 'FAILED')),
+    attempts        integer                     NOT NULL,
+    next_attempt_at timestamp(6) with time zone NOT NULL,
+    created_at      timestamp(6) with time zone NOT NULL,
+    last_error      varchar(500)
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_due ON email_outbox (status, next_attempt_at);
+
+CREATE TABLE IF NOT EXISTS jwt_signing_keys (
+    kid                varchar(64)                 NOT NULL PRIMARY KEY,
+    public_key         bytea                       NOT NULL,
+    sealed_private_key bytea                       NOT NULL,
+    status             varchar(16)                 NOT NULL CHECK (status IN ('NEXT', 'ACTIVE', 'RETIRED')),
+    created_at         timestamp(6) with time zone NOT NULL,
+    activated_at       timestamp(6) with time zone,
+    retire_at          timestamp(6) with time zone
+);
+
+-- Revocation is recorded in revoked_at; expires_at, the partition key, never changes after insert
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS revoked_at timestamp(6) with time zone;
+CREATE INDEX IF NOT EXISTS idx_rt_revoked ON refresh_tokens (revoked_at) WHERE revoked_at IS NOT NULL;
+
+-- Both insert paths stamp refresh tokens with the database clock: the rotate statement with now(), a login
+-- through these defaults
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS session_started_at timestamp(6) with time zone DEFAULT now();
+ALTER TABLE refresh_tokens ALTER COLUMN created_at SET DEFAULT now();
+ALTER TABLE refresh_tokens ALTER COLUMN session_started_at SET DEFAULT now();
+
+-- A session keeps its id across rotations: generated here on login, copied to each successor by the rotate
+-- statement. Existing rows each get their own id; only the live row of an older chain matters
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS session_id uuid NOT NULL DEFAULT gen_random_uuid();
+CREATE INDEX IF NOT EXISTS idx_rt_session ON refresh_tokens (session_id);
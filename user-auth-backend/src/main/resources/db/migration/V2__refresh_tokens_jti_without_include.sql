@@ -0,0 +1,28 @@
+-- idx_rt_jti carried INCLUDE (user_id, revoked, expires_at) for index-only jti probes, but no statement reads
+-- those columns from it: rotation and revocation update the row, and the reuse check reads session_id and
+-- replaced_by_token, so every lookup visits the heap anyway. Rebuilds it with its key columns only.
+-- On the single table this replaces the UNIQUE constraint V1 declared (or the index db/refresh_tokens_uuid_jti.sql
+-- created); on a table partitioned by db/refresh_tokens_partitioned.sql the key keeps expires_at, which every
+-- unique index of a partitioned table must contain. Skipped if the index already has no included columns.
+-- Writes to refresh_tokens wait while the new index is built: about as long as the index takes to build once.
+
+DO $$
+DECLARE
+    partitioned boolean := (SELECT relkind = 'p' FROM pg_class WHERE oid = 'refresh_tokens'::regclass);
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_index
+                    WHERE indexrelid = to_regclass('idx_rt_jti') AND indnatts > indnkeyatts) THEN
+        RETURN;
+    END IF;
+    IF partitioned THEN
+        CREATE UNIQUE INDEX idx_rt_jti_keys ON refresh_tokens (jti, expires_at);
+    ELSE
+        CREATE UNIQUE INDEX idx_rt_jti_keys ON refresh_tokens (jti);
+    END IF;
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'refresh_tokens'::regclass AND conname = 'idx_rt_jti') THEN
+        ALTER TABLE refresh_tokens DROP CONSTRAINT idx_rt_jti;
+    ELSE
+        DROP INDEX idx_rt_jti;
+    END IF;
+    ALTER INDEX idx_rt_jti_keys RENAME TO idx_rt_jti;
+END $$;
@@ -0,0 +1,17 @@
+-- idx_rt_user_created was (user_id, created_at) over every row, so the session listing and the per-user session cap
+-- skipped the user's revoked rows one by one and sorted ties on session_id themselves. Rebuilds it in their
+-- ORDER BY created_at DESC, session_id DESC, over live rows only, so both read just the entries they return.
+-- Account deletion still finds the user's revoked rows, by scanning refresh_tokens; deletions are rare.
+-- Writes to refresh_tokens wait while the new index is built. Skipped if the index is already partial.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_index
+                WHERE indexrelid = to_regclass('idx_rt_user_created') AND indpred IS NOT NULL) THEN
+        RETURN;
+    END IF;
+    CREATE INDEX idx_rt_user_created_live ON refresh_tokens (user_id, created_at DESC, session_id DESC)
+        WHERE NOT revoked;
+    DROP INDEX IF EXISTS idx_rt_user_created;
+    ALTER INDEX idx_rt_user_created_live RENAME TO idx_rt_user_created;
+END $$;
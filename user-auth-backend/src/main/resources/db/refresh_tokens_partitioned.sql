@@ -0,0 +1,66 @@
+-- Converts refresh_tokens into a table range-partitioned by expires_at.
+--
+-- Expects jti already converted to uuid by db/refresh_tokens_uuid_jti.sql, and the migrations in db/migration
+-- applied, i.e. one application start since upgrading.
+-- Run once, in a maintenance window, before starting the application with
+-- app.refresh-tokens.partitioning.enabled=true.
+-- expires_at must never be updated: revocation is recorded in revoked_at, so a row stays in its partition.
+-- Partitions are named refresh_tokens_<from>_<to> (UTC dates, upper bound exclusive);
+-- RefreshTokenPartitionManager relies on that naming to extend and drop them.
+-- This script creates daily partitions covering the next 40 days; use a 7 day step for weekly ones.
+
+BEGIN;
+
+ALTER TABLE refresh_tokens RENAME TO refresh_tokens_legacy;
+-- Index and constraint names are per schema, so free them for the new table
+ALTER TABLE refresh_tokens_legacy RENAME CONSTRAINT refresh_tokens_pkey TO refresh_tokens_legacy_pkey;
+ALTER INDEX IF EXISTS idx_rt_jti RENAME TO idx_rt_legacy_jti;
+ALTER INDEX IF EXISTS idx_rt_user_created RENAME TO idx_rt_legacy_user_created;
+ALTER INDEX IF EXISTS idx_rt_expiry RENAME TO idx_rt_legacy_expiry;
+ALTER INDEX IF EXISTS idx_rt_revoked RENAME TO idx_rt_legacy_revoked;
+ALTER INDEX IF EXISTS idx_rt_session RENAME TO idx_rt_legacy_session;
+
+-- The partition key has to be part of every unique constraint, so id and jti are unique per expires_at.
+-- Both are random UUIDs, which keeps them unique in practice.
+CREATE TABLE refresh_tokens (
+    id                 uuid                        NOT NULL,
+    jti                uuid                        NOT NULL,
+    user_id            uuid                        NOT NULL REFERENCES users (id),
+    session_id         uuid                        NOT NULL DEFAULT gen_random_uuid(),
+    created_at         timestamp(6) with time zone NOT NULL DEFAULT now(),
+    session_started_at timestamp(6) with time zone DEFAULT now(),
+    expires_at         timestamp(6) with time zone NOT NULL,
+    revoked            boolean                     NOT NULL,
+    revoked_at         timestamp(6) with time zone,
+    replaced_by_token  uuid,
+    PRIMARY KEY (id, expires_at)
+) PARTITION BY RANGE (expires_at);
+
+CREATE UNIQUE INDEX idx_rt_jti ON refresh_tokens (jti, expires_at);
+CREATE INDEX idx_rt_user_created ON refresh_tokens (user_id, created_at DESC, session_id DESC) WHERE NOT revoked;
+CREATE INDEX idx_rt_expiry ON refresh_tokens (expires_at);
+CREATE INDEX idx_rt_revoked ON refresh_tokens (revoked_at) WHERE revoked_at IS NOT NULL;
+CREATE INDEX idx_rt_session ON refresh_tokens (session_id);
+
+DO $$
+DECLARE
+    d date;
+BEGIN
+    FOR d IN SELECT generate_series(current_date, current_date + 40, interval '1 day')::date LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF refresh_tokens FOR VALUES FROM (%L) TO (%L)',
+                       'refresh_tokens_' || to_char(d, 'YYYYMMDD') || '_' || to_char(d + 1, 'YYYYMMDD'),
+                       d::timestamp AT TIME ZONE 'UTC',
+                       (d + 1)::timestamp AT TIME ZONE 'UTC');
+    END LOOP;
+END $$;
+
+-- Only live tokens are carried over; expired and revoked rows stay behind with the legacy table.
+INSERT INTO refresh_tokens (id, jti, user_id, session_id, created_at, session_started_at, expires_at, revoked, replaced_by_token)
+SELECT id, jti, user_id, session_id, created_at, session_started_at, expires_at, revoked, replaced_by_token
+  FROM refresh_tokens_legacy
+ WHERE expires_at >= current_date::timestamp AT TIME ZONE 'UTC'
+   AND NOT revoked;
+
+COMMIT;
+
+-- After verifying the application: DROP TABLE refresh_tokens_legacy;
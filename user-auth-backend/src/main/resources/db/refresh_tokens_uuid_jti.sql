@@ -0,0 +1,36 @@
+-- Converts refresh_tokens.jti and replaced_by_token from varchar(64) UUID text to native uuid (16 bytes)
+-- and rebuilds idx_rt_jti on the uuid column, at less than half the size.
+--
+-- Run once on a database created while jti was varchar(64), before the first start with the migrations in
+-- db/migration; a schema they create already has the uuid columns.
+-- For a table partitioned by db/refresh_tokens_partitioned.sql, the unique key must also contain expires_at:
+--   CREATE UNIQUE INDEX idx_rt_jti ON refresh_tokens (jti, expires_at);
+
+BEGIN;
+
+-- Hibernate's generated UK_ constraint on jti duplicated idx_rt_jti; uniqueness now comes from the index alone
+DO $$
+DECLARE
+    c text;
+BEGIN
+    FOR c IN SELECT conname FROM pg_constraint
+              WHERE conrelid = 'refresh_tokens'::regclass AND contype = 'u' LOOP
+        EXECUTE format('ALTER TABLE refresh_tokens DROP CONSTRAINT %I', c);
+    END LOOP;
+END $$;
+
+DROP INDEX IF EXISTS idx_rt_jti;
+
+ALTER TABLE refresh_tokens
+    ALTER COLUMN jti TYPE uuid USING jti::uuid,
+    ALTER COLUMN replaced_by_token TYPE uuid USING replaced_by_token::uuid;
+
+CREATE UNIQUE INDEX idx_rt_jti ON refresh_tokens (jti);
+
+COMMIT;
+
+ANALYZE refresh_tokens;
+
+-- Compare before/after with:
+--   SELECT pg_size_pretty(pg_relation_size('idx_rt_jti'));
+--   EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM refresh_tokens WHERE jti = '<uuid>';
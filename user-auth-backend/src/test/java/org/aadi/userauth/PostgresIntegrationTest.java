@@ -0,0 +1,139 @@
+package org.aadi.userauth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aadi.userauth.auth.model.Role;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.auth.repository.RoleRepository;
+import org.aadi.userauth.auth.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base class for tests that boot the whole application against PostgreSQL.
+ * <p>
+ * Set {@code TEST_DATABASE_URL} (plus {@code TEST_DATABASE_USERNAME} / {@code TEST_DATABASE_PASSWORD}) to use an
+ * existing database; otherwise a Testcontainers PostgreSQL is started once and shared by every test class. Without
+ * either, the tests are skipped.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class PostgresIntegrationTest {
+
+    /** Satisfies the password policy; pass it to {@link #createUser} and {@link #login}. */
+    protected static final String PASSWORD = "Corr3ct-Horse-Battery";
+
+    private static final String DATABASE_URL = System.getenv("TEST_DATABASE_URL");
+    private static PostgreSQLContainer<?> postgres;
+
+    @Autowired
+    protected MockMvc mvc;
+    @Autowired
+    protected ObjectMapper objectMapper;
+    @Autowired
+    protected UserRepository userRepository;
+    @Autowired
+    protected RoleRepository roleRepository;
+    @Autowired
+    protected PasswordEncoder passwordEncoder;
+
+    @BeforeAll
+    static void requireDatabase() {
+        assumeTrue(DATABASE_URL != null || DockerClientFactory.instance().isDockerAvailable(),
+                "Set TEST_DATABASE_URL or run Docker to execute PostgreSQL integration tests");
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        if (DATABASE_URL != null) {
+            registry.add("spring.datasource.url", () -> DATABASE_URL);
+            registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("TEST_DATABASE_USERNAME", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("TEST_DATABASE_PASSWORD", ""));
+            return;
+        }
+        PostgreSQLContainer<?> container = container();
+        registry.add("spring.datasource.url", container::getJdbcUrl);
+        registry.add("spring.datasource.username", container::getUsername);
+        registry.add("spring.datasource.password", container::getPassword);
+    }
+
+    private static synchronized PostgreSQLContainer<?> container() {
+        if (postgres == null) {
+            // Stopped by the Testcontainers reaper when the JVM exits
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+        }
+        return postgres;
+    }
+
+    /** An enabled local user with a unique email and the given role names. */
+    protected User createUser(String password, String... roles) {
+        String email = "it-" + UUID.randomUUID() + "@example.com";
+        User user = User.builder()
+                .email(email)
+                .name("Integration Test")
+                .password(passwordEncoder.encode(password))
+                .roles(Arrays.stream(roles).map(this::role).collect(Collectors.toSet()))
+                .build();
+        return userRepository.save(user);
+    }
+
+    private Role role(String name) {
+        return roleRepository.findAll().stream()
+                .filter(r -> r.getName().equals(name))
+                .findFirst()
+                .orElseGet(() -> roleRepository.save(Role.builder().name(name).build()));
+    }
+
+    /** Logs in through the API and returns the response body ({@code accessToken}, {@code refreshToken}, ...). */
+    protected JsonNode login(String email, String password) throws Exception {
+        MvcResult result = mvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(Map.of("email", email, "password", password))))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    /** An {@code Authorization} header value for {@code user}, whose password must be {@link #PASSWORD}. */
+    protected String bearer(User user) throws Exception {
+        return "Bearer " + login(user.getEmail(), PASSWORD).get("accessToken").asText();
+    }
+
+    /** An {@code Authorization} header value for a new user holding the role stored as {@code adminRole}. */
+    protected String adminBearer(String adminRole) throws Exception {
+        return bearer(createUser(PASSWORD, adminRole));
+    }
+
+    protected ResultActions refresh(String refreshToken) throws Exception {
+        return mvc.perform(post("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("refreshToken", refreshToken))));
+    }
+
+    protected String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+}
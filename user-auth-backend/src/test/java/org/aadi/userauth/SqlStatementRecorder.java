@@ -0,0 +1,36 @@
+package org.aadi.userauth;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Hibernate {@link StatementInspector} that records the SQL each thread sends, so tests can assert how many
+ * statements a request costs. MockMvc requests run on the test thread, which keeps scheduled jobs out of the count.
+ */
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.get().clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS.get());
+    }
+
+    /** Statements of this thread matching {@code regex}, case-insensitively. */
+    public static List<String> matching(String regex) {
+        Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+        return STATEMENTS.get().stream().filter(sql -> pattern.matcher(sql).find()).toList();
+    }
+}
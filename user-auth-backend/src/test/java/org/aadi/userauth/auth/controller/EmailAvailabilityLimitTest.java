@@ -0,0 +1,71 @@
+package org.aadi.userauth.auth.controller;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A real port, so requests pass through Tomcat's RemoteIpValve as they do behind a proxy
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class EmailAvailabilityLimitTest extends PostgresIntegrationTest {
+
+    @Value("${app.email-filter.availability-checks-per-minute}")
+    private int maxPerMinute;
+
+    @Autowired
+    private TestRestTemplate http;
+
+    @Test
+    void checksBeyondTheLimitAreRefusedForThatClientOnly() throws Exception {
+        for (int i = 0; i < maxPerMinute; i++) {
+            check("203.0.113.7").andExpect(status().isOk()).andExpect(jsonPath("$.available").value(true));
+        }
+
+        check("203.0.113.7").andExpect(status().isTooManyRequests());
+        check("203.0.113.8").andExpect(status().isOk());
+    }
+
+    @Test
+    void clientsBehindTheSameProxyGetSeparateBudgets() {
+        for (int i = 0; i < maxPerMinute; i++) {
+            assertThat(forwardedCheck("198.51.100.1")).isEqualTo(HttpStatus.OK);
+        }
+
+        assertThat(forwardedCheck("198.51.100.1")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(forwardedCheck("198.51.100.2")).isEqualTo(HttpStatus.OK);
+        // A client-supplied X-Forwarded-For entry is not trusted; the proxy appends the address it saw
+        assertThat(forwardedCheck("198.51.100.3, 198.51.100.1")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private ResultActions check(String clientAddress) throws Exception {
+        return mvc.perform(get("/api/v1/auth/email-available")
+                .param("email", "available-" + UUID.randomUUID() + "@example.test")
+                .with(request -> {
+                    request.setRemoteAddr(clientAddress);
+                    return request;
+                }));
+    }
+
+    /** A check arriving from a loopback proxy, which Tomcat trusts by default, on behalf of {@code forwardedFor}. */
+    private HttpStatusCode forwardedCheck(String forwardedFor) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Forwarded-For", forwardedFor);
+        return http.exchange("/api/v1/auth/email-available?email={email}", HttpMethod.GET, new HttpEntity<>(headers),
+                String.class, "available-" + UUID.randomUUID() + "@example.test").getStatusCode();
+    }
+}
@@ -0,0 +1,104 @@
+package org.aadi.userauth.auth.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.jsonwebtoken.Jwts;
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.security.SigningKeyRing;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A long sync interval keeps the scheduled re-read out of other test classes that share the key table
+@TestPropertySource(properties = {
+        "security.jwt.signing.algorithm=ES256",
+        "security.jwt.signing.sync-interval=PT1H",
+        "security.jwt.signing.jwks-max-age-seconds=600"
+})
+class JwksControllerTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private SigningKeyRing signingKeys;
+
+    @Test
+    void theJwksPublishesTheSigningKeysAndMayBeCachedPublicly() throws Exception {
+        JsonNode keys = jwks();
+
+        assertThat(kids(keys)).contains(signingKeys.active().kid()).hasSizeGreaterThanOrEqualTo(2);
+        for (JsonNode jwk : keys) {
+            assertThat(jwk.get("kty").asText()).isEqualTo("EC");
+            assertThat(jwk.get("crv").asText()).isEqualTo("P-256");
+            assertThat(jwk.get("alg").asText()).isEqualTo("ES256");
+            assertThat(jwk.get("use").asText()).isEqualTo("sig");
+            assertThat(jwk.has("d")).isFalse();
+        }
+    }
+
+    @Test
+    void anAccessTokenVerifiesAgainstTheKeyTheJwksPublishesForItsKid() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        String accessToken = login(user.getEmail(), PASSWORD).get("accessToken").asText();
+
+        JsonNode header = objectMapper.readTree(Base64.getUrlDecoder().decode(accessToken.split("\\.")[0]));
+        assertThat(header.get("alg").asText()).isEqualTo("ES256");
+        String kid = header.get("kid").asText();
+        JsonNode jwk = null;
+        for (JsonNode candidate : jwks()) {
+            if (candidate.get("kid").asText().equals(kid)) {
+                jwk = candidate;
+            }
+        }
+        assertThat(jwk).isNotNull();
+
+        // What a resource server does with the document
+        String subject = Jwts.parserBuilder().setSigningKey(publicKey(jwk)).build()
+                .parseClaimsJws(accessToken).getBody().getSubject();
+        assertThat(subject).isEqualTo(user.getId().toString());
+        mvc.perform(get("/api/v1/auth/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk());
+    }
+
+    private JsonNode jwks() throws Exception {
+        String body = mvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=600, public"))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("keys");
+    }
+
+    private static List<String> kids(JsonNode keys) {
+        List<String> kids = new ArrayList<>();
+        keys.forEach(jwk -> kids.add(jwk.get("kid").asText()));
+        return kids;
+    }
+
+    private static PublicKey publicKey(JsonNode jwk) throws Exception {
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        ECPoint point = new ECPoint(coordinate(jwk, "x"), coordinate(jwk, "y"));
+        return KeyFactory.getInstance("EC")
+                .generatePublic(new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+    }
+
+    private static BigInteger coordinate(JsonNode jwk, String name) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(jwk.get(name).asText()));
+    }
+}
@@ -0,0 +1,66 @@
+package org.aadi.userauth.auth.controller;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.SqlStatementRecorder;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.security.PrincipalCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LoginStatementCountTest extends PostgresIntegrationTest {
+
+    private static final String USERS_SELECT = "^\\s*select\\b.*\\b(from|join)\\s+users\\b";
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Test
+    void loginReadsTheUserOnceAndInsertsOneRefreshToken() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+
+        SqlStatementRecorder.clear();
+        login(user.getEmail(), PASSWORD);
+
+        assertThat(SqlStatementRecorder.matching(USERS_SELECT)).hasSize(1);
+        assertThat(SqlStatementRecorder.matching("^\\s*insert\\s+into\\s+refresh_tokens\\b")).hasSize(1);
+    }
+
+    @Test
+    void authenticatedRequestAfterLoginDoesNotSelectTheUser() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        String accessToken = login(user.getEmail(), PASSWORD).get("accessToken").asText();
+
+        SqlStatementRecorder.clear();
+        mvc.perform(get("/api/v1/auth/sessions")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        assertThat(SqlStatementRecorder.statements()).isNotEmpty();
+        assertThat(SqlStatementRecorder.matching(USERS_SELECT)).isEmpty();
+    }
+
+    @Test
+    void failedLoginDoesNotCacheThePrincipal() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        principalCache.invalidate(user);
+
+        mvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(Map.of("email", user.getEmail(), "password", "wrong-password"))))
+                .andExpect(status().is4xxClientError());
+
+        // A cached principal would answer without touching the database
+        SqlStatementRecorder.clear();
+        assertThat(principalCache.findByEmail(user.getEmail())).isPresent();
+        assertThat(SqlStatementRecorder.matching(USERS_SELECT)).hasSize(1);
+    }
+}
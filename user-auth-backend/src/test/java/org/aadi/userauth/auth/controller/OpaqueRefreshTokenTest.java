@@ -0,0 +1,106 @@
+package org.aadi.userauth.auth.controller;
+
+import jakarta.servlet.http.Cookie;
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.security.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "security.jwt.refresh-token-format=opaque")
+class OpaqueRefreshTokenTest extends PostgresIntegrationTest {
+
+    private static final String OPAQUE = "[A-Za-z0-9_-]{48}";
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aJwtRefreshTokenIssuedBeforeTheSwitchStillRotates() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        String accessToken = login(user.getEmail(), PASSWORD).get("accessToken").asText();
+        String jwt = jwtIssuedBeforeTheSwitch(user);
+
+        String successor = rotated(refresh(jwt).andExpect(status().isOk()).andReturn());
+        assertThat(successor).matches(OPAQUE);
+        String latest = rotated(refresh(successor).andExpect(status().isOk()).andReturn());
+
+        // The JWT is now a replay like any other rotated token and ends its session, not the login's
+        refresh(jwt).andExpect(status().isUnauthorized());
+        refresh(latest).andExpect(status().isUnauthorized());
+        mvc.perform(get("/api/v1/auth/sessions").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions.length()").value(1));
+    }
+
+    @Test
+    void opaqueTokensAreIssuedRotatedAndRevokedWithoutBeingStored() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        MvcResult login = mvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(Map.of("email", user.getEmail(), "password", PASSWORD))))
+                .andExpect(status().isOk())
+                .andReturn();
+        String issued = objectMapper.readTree(login.getResponse().getContentAsString()).get("refreshToken").asText();
+        assertThat(issued).matches(OPAQUE);
+        assertThat(login.getResponse().getCookie("refresh_token").getValue()).isEqualTo(issued);
+        // One row, keyed by the token's digest; the token itself is not stored
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM refresh_tokens WHERE user_id = ?",
+                Integer.class, user.getId())).isEqualTo(1);
+
+        // Browsers send it back in the cookie
+        MvcResult viaCookie = mvc.perform(post("/api/v1/auth/refresh").cookie(new Cookie("refresh_token", issued)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String successor = rotated(viaCookie);
+        assertThat(successor).matches(OPAQUE).isNotEqualTo(issued);
+        assertThat(objectMapper.readTree(viaCookie.getResponse().getContentAsString()).get("accessToken").asText())
+                .contains(".");
+
+        mvc.perform(post("/api/v1/auth/logout").header("X-Refresh-Token", successor))
+                .andExpect(status().isNoContent());
+        refresh(successor).andExpect(status().isUnauthorized());
+        refresh(issued).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void anUnknownOrMalformedOpaqueTokenIsRejected() throws Exception {
+        refresh("A".repeat(47)).andExpect(status().isBadRequest());
+        refresh(UUID.randomUUID().toString().replace("-", "") + "A".repeat(16)).andExpect(status().isUnauthorized());
+    }
+
+    /** A refresh token and its row as a node still on {@code refresh-token-format=jwt} issued them. */
+    private String jwtIssuedBeforeTheSwitch(User user) {
+        UUID jti = UUID.randomUUID();
+        Instant expiresAt = Instant.now().plusSeconds(jwtService.getRefreshTtlSeconds()).truncatedTo(ChronoUnit.SECONDS);
+        jdbcTemplate.update("""
+                INSERT INTO refresh_tokens (id, jti, user_id, expires_at, revoked)
+                VALUES (gen_random_uuid(), ?, ?, ?, false)
+                """, jti, user.getId(), Timestamp.from(expiresAt));
+        return jwtService.generateRefreshToken(user.getId(), jti.toString(), expiresAt);
+    }
+
+    private String rotated(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("refreshToken").asText();
+    }
+}
@@ -0,0 +1,55 @@
+package org.aadi.userauth.auth.controller;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.security.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RefreshTokenExpiryTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void theStoredExpiryIsTheTokensExpAndLookupsOnlySearchAroundIt() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        String token = login(user.getEmail(), PASSWORD).get("refreshToken").asText();
+        Instant exp = jwtService.verify(token).expiresAt();
+        assertThat(storedExpiry(user)).isEqualTo(exp);
+
+        // A row outside the window around exp, as in another partition, is not found
+        setExpiry(user, exp.plusSeconds(3600));
+        refresh(token).andExpect(status().isUnauthorized());
+
+        // Rows from before tokens carried their exact expiry are a second or so off, and still found
+        setExpiry(user, exp.plusMillis(1500));
+        String successor = objectMapper.readTree(refresh(token)
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString())
+                .get("refreshToken").asText();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT expires_at FROM refresh_tokens WHERE user_id = ? AND NOT revoked", Timestamp.class, user.getId())
+                .toInstant()).isEqualTo(jwtService.verify(successor).expiresAt());
+    }
+
+    private Instant storedExpiry(User user) {
+        return jdbcTemplate.queryForObject("SELECT expires_at FROM refresh_tokens WHERE user_id = ?",
+                Timestamp.class, user.getId()).toInstant();
+    }
+
+    private void setExpiry(User user, Instant expiresAt) {
+        jdbcTemplate.update("UPDATE refresh_tokens SET expires_at = ? WHERE user_id = ?",
+                Timestamp.from(expiresAt), user.getId());
+    }
+}
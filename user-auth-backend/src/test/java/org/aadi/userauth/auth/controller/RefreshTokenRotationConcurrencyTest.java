@@ -0,0 +1,77 @@
+package org.aadi.userauth.auth.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RefreshTokenRotationConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int ROUNDS = 5;
+
+    @Test
+    void parallelRefreshesOfOneTokenLetExactlyOneWinAndKeepTheSession() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                User user = createUser(PASSWORD, "USER");
+                JsonNode login = login(user.getEmail(), PASSWORD);
+                String refreshToken = login.get("refreshToken").asText();
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<MvcResult>> attempts = new ArrayList<>();
+                for (int i = 0; i < 2; i++) {
+                    attempts.add(pool.submit(() -> {
+                        start.await();
+                        return refresh(refreshToken).andReturn();
+                    }));
+                }
+                start.countDown();
+
+                List<MvcResult> results = new ArrayList<>();
+                for (Future<MvcResult> attempt : attempts) {
+                    results.add(attempt.get());
+                }
+                List<Integer> statuses = results.stream().map(r -> r.getResponse().getStatus()).sorted().toList();
+                assertThat(statuses).containsExactly(200, 401);
+
+                // The loser lost a race within the reuse grace, so the winner's successor stays usable
+                MvcResult winner = results.stream().filter(r -> r.getResponse().getStatus() == 200).findFirst().orElseThrow();
+                String successor = objectMapper.readTree(winner.getResponse().getContentAsString()).get("refreshToken").asText();
+                String latest = objectMapper.readTree(refresh(successor)
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString())
+                        .get("refreshToken").asText();
+
+                mvc.perform(get("/api/v1/auth/sessions")
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + login.get("accessToken").asText()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.sessions.length()").value(1));
+
+                // Once the successor has been used, the first token coming back is a replay and ends the session
+                refresh(refreshToken).andExpect(status().isUnauthorized());
+                refresh(latest).andExpect(status().isUnauthorized());
+                mvc.perform(get("/api/v1/auth/sessions")
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + login.get("accessToken").asText()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.sessions").isEmpty());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
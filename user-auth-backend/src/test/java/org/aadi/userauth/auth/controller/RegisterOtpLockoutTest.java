@@ -0,0 +1,53 @@
+package org.aadi.userauth.auth.controller;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.Otp;
+import org.aadi.userauth.auth.repository.OtpRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RegisterOtpLockoutTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private OtpRepository otpRepository;
+
+    @Value("${app.otp.max-attempts}")
+    private int maxAttempts;
+
+    @Test
+    void aRejectedDuplicateRegistrationDoesNotRestoreWrongGuesses() throws Exception {
+        String email = "lockout-" + UUID.randomUUID() + "@example.test";
+        register(email).andExpect(status().isCreated());
+
+        for (int i = 0; i < maxAttempts - 1; i++) {
+            verify(email, "000000").andExpect(status().isBadRequest());
+        }
+        // Rolls back without replacing the pending code, so the guesses made against it still count
+        register(email).andExpect(status().isConflict());
+        verify(email, "000000").andExpect(status().isBadRequest());
+
+        assertThat(otpRepository.findActiveOtpsByEmailAndType(email, Otp.OtpType.REGISTER)).isEmpty();
+    }
+
+    private ResultActions register(String email) throws Exception {
+        return mvc.perform(post("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("email", email, "name", "Lockout Test", "password", PASSWORD))));
+    }
+
+    private ResultActions verify(String email, String otp) throws Exception {
+        return mvc.perform(post("/api/v1/auth/verify-otp")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("email", email, "otp", otp))));
+    }
+}
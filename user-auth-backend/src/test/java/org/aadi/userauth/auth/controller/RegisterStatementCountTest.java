@@ -0,0 +1,49 @@
+package org.aadi.userauth.auth.controller;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.SqlStatementRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RegisterStatementCountTest extends PostgresIntegrationTest {
+
+    @Test
+    void registerInsertsOnceWithoutCheckingTheEmailFirst() throws Exception {
+        String email = "register-" + UUID.randomUUID() + "@example.test";
+
+        SqlStatementRecorder.clear();
+        register(email).andExpect(status().isCreated());
+
+        assertThat(SqlStatementRecorder.matching("^\\s*select\\b.*\\b(from|join)\\s+users\\b")).isEmpty();
+        assertThat(SqlStatementRecorder.matching("^\\s*insert\\s+into\\s+users\\b")).hasSize(1);
+        assertThat(SqlStatementRecorder.matching("^\\s*update\\s+users\\b")).isEmpty();
+        assertThat(SqlStatementRecorder.matching("^\\s*delete\\s+from\\s+otps\\b")).isEmpty();
+        assertThat(SqlStatementRecorder.matching("^\\s*insert\\s+into\\s+otps\\b")).hasSize(1);
+        assertThat(SqlStatementRecorder.matching("^\\s*insert\\s+into\\s+email_outbox\\b")).hasSize(1);
+    }
+
+    @Test
+    void registeringATakenEmailAnswers409() throws Exception {
+        String email = "register-" + UUID.randomUUID() + "@example.test";
+        register(email).andExpect(status().isCreated());
+
+        // Decided by the unique constraint on users.email, not by a lookup
+        SqlStatementRecorder.clear();
+        register(email.toUpperCase()).andExpect(status().isConflict());
+        assertThat(SqlStatementRecorder.matching("^\\s*select\\b.*\\b(from|join)\\s+users\\b")).isEmpty();
+    }
+
+    private ResultActions register(String email) throws Exception {
+        return mvc.perform(post("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("email", email, "name", "Register Test", "password", PASSWORD))));
+    }
+}
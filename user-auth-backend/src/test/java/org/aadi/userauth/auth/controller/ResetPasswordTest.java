@@ -0,0 +1,94 @@
+package org.aadi.userauth.auth.controller;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.SqlStatementRecorder;
+import org.aadi.userauth.auth.model.Otp;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.auth.repository.OtpRepository;
+import org.aadi.userauth.auth.service.otp.OtpStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ResetPasswordTest extends PostgresIntegrationTest {
+
+    private static final String NEW_PASSWORD = "N3w-Staple-Lantern-Orbit";
+    private static final String CODE = "123456";
+
+    @Autowired
+    private OtpStore otpStore;
+
+    @Autowired
+    private OtpRepository otpRepository;
+
+    @Value("${app.otp.max-attempts}")
+    private int maxAttempts;
+
+    @Test
+    void resetWithAValidCodeChangesThePasswordAndUsesUpTheCode() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        otpStore.save(user.getEmail(), Otp.OtpType.RESET, CODE, Instant.now().plus(Duration.ofMinutes(10)));
+
+        // Consuming the code and deleting it afterwards happen in one transaction, so this must not block on itself
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> reset(user.getEmail(), CODE, NEW_PASSWORD).andExpect(status().isOk()));
+
+        login(user.getEmail(), NEW_PASSWORD);
+        reset(user.getEmail(), CODE, PASSWORD).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void tooManyWrongCodesBurnTheCodeEvenThoughTheRequestFails() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        otpStore.save(user.getEmail(), Otp.OtpType.RESET, CODE, Instant.now().plus(Duration.ofMinutes(10)));
+
+        for (int i = 0; i < maxAttempts; i++) {
+            reset(user.getEmail(), "000000", NEW_PASSWORD).andExpect(status().isBadRequest());
+        }
+        // The lockout counter lives on this node only; other nodes rely on the row being gone
+        assertThat(otpRepository.findActiveOtpsByEmailAndType(user.getEmail(), Otp.OtpType.RESET)).isEmpty();
+
+        // Once locked out, guesses are turned away before they reach the OTP store
+        SqlStatementRecorder.clear();
+        for (int i = 0; i < maxAttempts; i++) {
+            reset(user.getEmail(), i == 0 ? CODE : "000000", NEW_PASSWORD).andExpect(status().isBadRequest());
+        }
+        assertThat(SqlStatementRecorder.matching("\\botps\\b")).isEmpty();
+        login(user.getEmail(), PASSWORD);
+    }
+
+    @Test
+    void forgotPasswordForAnUnknownEmailAnswersTheSameButStoresNoCode() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        String unknown = "nobody-" + user.getId() + "@example.test";
+
+        forgot(unknown).andExpect(status().isOk());
+        forgot(user.getEmail()).andExpect(status().isOk());
+
+        assertThat(otpRepository.findActiveOtpsByEmailAndType(unknown, Otp.OtpType.RESET)).isEmpty();
+        assertThat(otpRepository.findActiveOtpsByEmailAndType(user.getEmail(), Otp.OtpType.RESET)).hasSize(1);
+    }
+
+    private ResultActions forgot(String email) throws Exception {
+        return mvc.perform(post("/api/v1/auth/forgot-password")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("email", email))));
+    }
+
+    private ResultActions reset(String email, String otp, String newPassword) throws Exception {
+        return mvc.perform(post("/api/v1/auth/reset-password")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("email", email, "otp", otp, "newPassword", newPassword))));
+    }
+}
@@ -0,0 +1,76 @@
+package org.aadi.userauth.auth.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SessionCapTest extends PostgresIntegrationTest {
+
+    @Value("${app.sessions.max-per-user}")
+    private int maxSessions;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void loginsBeyondTheCapRevokeTheOldestSessionsAcrossLoginAndRotation() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        List<String> refreshTokens = new ArrayList<>();
+        JsonNode last = null;
+        for (int i = 0; i < maxSessions + 2; i++) {
+            last = login(user.getEmail(), PASSWORD);
+            refreshTokens.add(last.get("refreshToken").asText());
+        }
+        // Rotating the newest session inserts its successor with the database clock, like the logins did
+        refresh(refreshTokens.get(refreshTokens.size() - 1)).andExpect(status().isOk());
+
+        mvc.perform(get("/api/v1/auth/sessions").param("limit", "100")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + last.get("accessToken").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions.length()").value(maxSessions));
+        refresh(refreshTokens.get(0)).andExpect(status().isUnauthorized());
+        refresh(refreshTokens.get(1)).andExpect(status().isUnauthorized());
+        refresh(refreshTokens.get(2)).andExpect(status().isOk());
+    }
+
+    @Test
+    void onACreatedAtTieTheCapRevokesTheSessionTheListingShowsLast() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        JsonNode last = null;
+        for (int i = 0; i < maxSessions; i++) {
+            last = login(user.getEmail(), PASSWORD);
+        }
+        jdbc.update("UPDATE refresh_tokens SET created_at = now() - interval '1 minute' WHERE user_id = ?", user.getId());
+        String bearer = "Bearer " + last.get("accessToken").asText();
+        List<String> listed = sessionIds(bearer);
+
+        login(user.getEmail(), PASSWORD);
+
+        List<String> remaining = sessionIds(bearer);
+        assertThat(remaining).hasSize(maxSessions).doesNotContain(listed.get(listed.size() - 1));
+        assertThat(remaining.subList(1, remaining.size())).isEqualTo(listed.subList(0, listed.size() - 1));
+    }
+
+    private List<String> sessionIds(String bearer) throws Exception {
+        String body = mvc.perform(get("/api/v1/auth/sessions").param("limit", "100").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return StreamSupport.stream(objectMapper.readTree(body).get("sessions").spliterator(), false)
+                .map(session -> session.get("id").asText())
+                .toList();
+    }
+}
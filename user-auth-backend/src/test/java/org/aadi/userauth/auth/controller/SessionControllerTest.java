@@ -0,0 +1,85 @@
+package org.aadi.userauth.auth.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.ResultActions;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SessionControllerTest extends PostgresIntegrationTest {
+
+    @Test
+    void sessionIdStaysTheSameAcrossRotationAndRevokesTheCurrentToken() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        JsonNode login = login(user.getEmail(), PASSWORD);
+        String bearer = "Bearer " + login.get("accessToken").asText();
+        String sessionId = onlySessionId(mvc.perform(get("/api/v1/auth/sessions").header(HttpHeaders.AUTHORIZATION, bearer)));
+
+        String rotated = refreshToken(refresh(login.get("refreshToken").asText()).andExpect(status().isOk()));
+        assertThat(onlySessionId(mvc.perform(get("/api/v1/auth/sessions").header(HttpHeaders.AUTHORIZATION, bearer))))
+                .isEqualTo(sessionId);
+
+        mvc.perform(delete("/api/v1/auth/sessions/{sessionId}", sessionId).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isNoContent());
+        refresh(rotated).andExpect(status().isUnauthorized());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ROLE_ADMIN", "ADMIN"})
+    void adminListsAnotherUsersSessions(String adminRole) throws Exception {
+        String admin = adminBearer(adminRole);
+        User user = createUser(PASSWORD, "USER");
+        login(user.getEmail(), PASSWORD);
+        login(user.getEmail(), PASSWORD);
+
+        mvc.perform(get("/api/v1/auth/sessions/users/{userId}", user.getId()).header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions.length()").value(2));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ROLE_ADMIN", "ADMIN"})
+    void adminRevokesAnotherUsersSessionByItsStableId(String adminRole) throws Exception {
+        String admin = adminBearer(adminRole);
+        User user = createUser(PASSWORD, "USER");
+        JsonNode login = login(user.getEmail(), PASSWORD);
+        String sessionId = onlySessionId(mvc.perform(get("/api/v1/auth/sessions/users/{userId}", user.getId())
+                .header(HttpHeaders.AUTHORIZATION, admin)));
+        String rotated = refreshToken(refresh(login.get("refreshToken").asText()).andExpect(status().isOk()));
+
+        mvc.perform(delete("/api/v1/auth/sessions/users/{userId}/{sessionId}", user.getId(), sessionId)
+                        .header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isNoContent());
+        refresh(rotated).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void nonAdminCannotUseTheAdminEndpoints() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        String bearer = bearer(user);
+
+        mvc.perform(get("/api/v1/auth/sessions/users/{userId}", user.getId()).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isForbidden());
+    }
+
+    private String refreshToken(ResultActions result) throws Exception {
+        return objectMapper.readTree(result.andReturn().getResponse().getContentAsString()).get("refreshToken").asText();
+    }
+
+    private String onlySessionId(ResultActions listing) throws Exception {
+        JsonNode sessions = objectMapper.readTree(listing.andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("sessions");
+        assertThat(sessions).hasSize(1);
+        return sessions.get(0).get("id").asText();
+    }
+}
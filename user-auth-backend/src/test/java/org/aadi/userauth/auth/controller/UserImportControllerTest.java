@@ -0,0 +1,105 @@
+package org.aadi.userauth.auth.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserImportControllerTest extends PostgresIntegrationTest {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ROLE_ADMIN", "ADMIN"})
+    void adminImportsNdjsonAndRegisteredEmailsAreReportedPerRow(String adminRole) throws Exception {
+        String admin = adminBearer(adminRole);
+        User existing = createUser(PASSWORD, "USER");
+        String imported = "import-" + UUID.randomUUID() + "@example.test";
+        String body = json(Map.of("email", imported, "name", "Imported User", "password", PASSWORD)) + "\n"
+                + json(Map.of("email", existing.getEmail(), "name", "Existing User", "password", PASSWORD)) + "\n";
+
+        List<JsonNode> events = events(importUsers(admin, NDJSON, body).andExpect(status().isOk()));
+
+        JsonNode summary = events.get(events.size() - 1);
+        assertThat(summary.get("type").asText()).isEqualTo("summary");
+        assertThat(summary.get("read").asLong()).isEqualTo(2);
+        assertThat(summary.get("imported").asLong()).isEqualTo(1);
+        assertThat(summary.get("skipped").asLong()).isEqualTo(1);
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.get("type").asText()).isEqualTo("error");
+            assertThat(event.get("line").asLong()).isEqualTo(2);
+        });
+        // Imported accounts are enabled and their raw password was hashed
+        login(imported, PASSWORD);
+    }
+
+    @Test
+    void registeredEmailsAreSkippedBeforeTheirPasswordsAreHashed() throws Exception {
+        String admin = adminBearer("ADMIN");
+        User existing = createUser(PASSWORD, "USER");
+        // bcrypt refuses passwords over 72 bytes, so hashing this row would fail it instead of skipping it
+        String unhashable = "x".repeat(100);
+        String body = json(Map.of("email", existing.getEmail(), "password", unhashable)) + "\n";
+
+        List<JsonNode> events = events(importUsers(admin, NDJSON, body).andExpect(status().isOk()));
+
+        JsonNode summary = events.get(events.size() - 1);
+        assertThat(summary.get("skipped").asLong()).isEqualTo(1);
+        assertThat(summary.get("failed").asLong()).isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ROLE_ADMIN", "ADMIN"})
+    void adminImportsCsv(String adminRole) throws Exception {
+        String admin = adminBearer(adminRole);
+        String imported = "import-" + UUID.randomUUID() + "@example.test";
+        String body = "email,name,password\n" + imported + ",\"Imported, User\"," + PASSWORD + "\n";
+
+        List<JsonNode> events = events(importUsers(admin, "text/csv", body).andExpect(status().isOk()));
+
+        assertThat(events.get(events.size() - 1).get("imported").asLong()).isEqualTo(1);
+        assertThat(userRepository.findByEmail(imported)).hasValueSatisfying(
+                user -> assertThat(user.getName()).isEqualTo("Imported, User"));
+    }
+
+    @Test
+    void nonAdminCannotImport() throws Exception {
+        User user = createUser(PASSWORD, "USER");
+        String bearer = bearer(user);
+        String imported = "import-" + UUID.randomUUID() + "@example.test";
+
+        importUsers(bearer, NDJSON, json(Map.of("email", imported, "password", PASSWORD)) + "\n")
+                .andExpect(status().isForbidden());
+        assertThat(userRepository.findByEmail(imported)).isEmpty();
+    }
+
+    private ResultActions importUsers(String bearer, String contentType, String body) throws Exception {
+        return mvc.perform(post("/api/v1/auth/users/import")
+                .header(HttpHeaders.AUTHORIZATION, bearer)
+                .header(HttpHeaders.CONTENT_TYPE, contentType)
+                .content(body));
+    }
+
+    private List<JsonNode> events(ResultActions result) throws Exception {
+        List<JsonNode> events = new ArrayList<>();
+        for (String line : result.andReturn().getResponse().getContentAsString().split("\n")) {
+            if (!line.isBlank()) {
+                events.add(objectMapper.readTree(line));
+            }
+        }
+        return events;
+    }
+}
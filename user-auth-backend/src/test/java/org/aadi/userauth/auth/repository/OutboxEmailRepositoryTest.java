@@ -0,0 +1,56 @@
+package org.aadi.userauth.auth.repository;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.OutboxEmail;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxEmailRepositoryTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private OutboxEmailRepository outboxRepository;
+
+    @Test
+    void givingUpOnAnEmailBlanksItsBody() {
+        OutboxEmail email = queue(OutboxEmail.Status.PENDING, Instant.now().plus(Duration.ofDays(1)));
+
+        outboxRepository.markFailed(email.getId(), "550 mailbox unavailable");
+
+        OutboxEmail stored = outboxRepository.findById(email.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(OutboxEmail.Status.FAILED);
+        assertThat(stored.getBody()).isEmpty();
+        assertThat(stored.getLastError()).isEqualTo("550 mailbox unavailable");
+    }
+
+    @Test
+    void purgeDeletesOnlyFailedEmailsPastTheRetention() {
+        Instant now = Instant.now();
+        OutboxEmail expired = queue(OutboxEmail.Status.FAILED, now.minus(Duration.ofDays(8)));
+        OutboxEmail retained = queue(OutboxEmail.Status.FAILED, now.minus(Duration.ofHours(1)));
+        OutboxEmail pending = queue(OutboxEmail.Status.PENDING, now.minus(Duration.ofDays(8)));
+
+        outboxRepository.deleteFailedBatch(now.minus(Duration.ofDays(7)), 1000);
+
+        assertThat(outboxRepository.findById(expired.getId())).isEmpty();
+        assertThat(outboxRepository.findById(retained.getId())).isPresent();
+        assertThat(outboxRepository.findById(pending.getId())).isPresent();
+    }
+
+    private OutboxEmail queue(OutboxEmail.Status status, Instant nextAttemptAt) {
+        return outboxRepository.save(OutboxEmail.builder()
+                .recipient("outbox-" + UUID.randomUUID() + "@example.test")
+                .subject("Reset your password")
+                .body("Your code is 123456")
+                .status(status)
+                .attempts(6)
+                .nextAttemptAt(nextAttemptAt)
+                .createdAt(nextAttemptAt)
+                .build());
+    }
+}
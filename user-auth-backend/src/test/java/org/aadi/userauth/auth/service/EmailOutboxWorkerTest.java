@@ -0,0 +1,139 @@
+package org.aadi.userauth.auth.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.OutboxEmail;
+import org.aadi.userauth.auth.repository.OutboxEmailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class EmailOutboxWorkerTest extends PostgresIntegrationTest {
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(10);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(60);
+    private static final int MAX_ATTEMPTS = 6;
+
+    @RegisterExtension
+    static final GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private OutboxEmailRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void emptyOutbox() {
+        // Rows queued by other tests would be claimed too
+        jdbcTemplate.update("DELETE FROM email_outbox");
+    }
+
+    @Test
+    void dueEmailsAreClaimedSentAndDeleted() throws Exception {
+        OutboxEmail first = queue(0, Instant.now().minusSeconds(1));
+        OutboxEmail second = queue(0, Instant.now().minusSeconds(1));
+        OutboxEmail notDue = queue(0, Instant.now().plus(Duration.ofMinutes(5)));
+
+        worker(smtp.getSmtp().getPort()).deliver();
+
+        List<String> recipients = new ArrayList<>();
+        for (MimeMessage received : smtp.getReceivedMessages()) {
+            assertThat(received.getSubject()).isEqualTo("Reset your password");
+            recipients.add(received.getAllRecipients()[0].toString());
+        }
+        assertThat(recipients).containsExactlyInAnyOrder(first.getRecipient(), second.getRecipient());
+        assertThat(outboxRepository.findById(first.getId())).isEmpty();
+        assertThat(outboxRepository.findById(second.getId())).isEmpty();
+        assertThat(outboxRepository.findById(notDue.getId())).isPresent();
+        assertThat(meterRegistry.counter("mail.outbox.sent").count()).isEqualTo(2);
+    }
+
+    @Test
+    void batchesAreDrainedUntilNothingIsDue() {
+        for (int i = 0; i < 5; i++) {
+            queue(0, Instant.now().minusSeconds(1));
+        }
+
+        worker(smtp.getSmtp().getPort()).deliver();
+
+        assertThat(smtp.getReceivedMessages()).hasSize(5);
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void failedSendsAreRetriedWithExponentialBackoffAndThenMarkedFailed() {
+        OutboxEmail firstAttempt = queue(0, Instant.now().minusSeconds(1));
+        OutboxEmail thirdAttempt = queue(2, Instant.now().minusSeconds(1));
+        OutboxEmail fifthAttempt = queue(4, Instant.now().minusSeconds(1));
+        OutboxEmail lastAttempt = queue(MAX_ATTEMPTS - 1, Instant.now().minusSeconds(1));
+
+        // Nothing listens on this port
+        Instant started = Instant.now();
+        worker(smtp.getSmtp().getPort() + 1).deliver();
+
+        assertRetryAfter(firstAttempt, 1, started, INITIAL_BACKOFF);
+        assertRetryAfter(thirdAttempt, 3, started, INITIAL_BACKOFF.multipliedBy(4));
+        assertRetryAfter(fifthAttempt, 5, started, MAX_BACKOFF);
+        OutboxEmail failed = outboxRepository.findById(lastAttempt.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(OutboxEmail.Status.FAILED);
+        assertThat(failed.getBody()).isEmpty();
+        assertThat(failed.getLastError()).isNotBlank();
+        assertThat(meterRegistry.counter("mail.outbox.retried").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("mail.outbox.failed").count()).isEqualTo(1);
+
+        // Once due again and the server is reachable, the retried emails go out; the failed one stays put
+        jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = now() WHERE status = 'PENDING'");
+        worker(smtp.getSmtp().getPort()).deliver();
+
+        assertThat(smtp.getReceivedMessages()).hasSize(3);
+        assertThat(outboxRepository.findAll()).extracting(OutboxEmail::getId).containsExactly(lastAttempt.getId());
+    }
+
+    private void assertRetryAfter(OutboxEmail queued, int attempts, Instant started, Duration backoff) {
+        OutboxEmail stored = outboxRepository.findById(queued.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(OutboxEmail.Status.PENDING);
+        assertThat(stored.getAttempts()).isEqualTo(attempts);
+        assertThat(stored.getLastError()).isNotBlank();
+        assertThat(stored.getNextAttemptAt()).isCloseTo(started.plus(backoff), within(5, ChronoUnit.SECONDS));
+    }
+
+    /** The worker as configured, but with two-email batches and a sender pointed at {@code port}. */
+    private EmailOutboxWorker worker(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(smtp.getSmtp().getBindTo());
+        mailSender.setPort(port);
+        return new EmailOutboxWorker(outboxRepository, mailSender, meterRegistry, 2, 20, MAX_ATTEMPTS,
+                Duration.ofMinutes(2), INITIAL_BACKOFF, MAX_BACKOFF);
+    }
+
+    private OutboxEmail queue(int attempts, Instant nextAttemptAt) {
+        return outboxRepository.save(OutboxEmail.builder()
+                .recipient("outbox-" + UUID.randomUUID() + "@example.test")
+                .subject("Reset your password")
+                .body("Your code is 123456")
+                .status(OutboxEmail.Status.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(nextAttemptAt)
+                .createdAt(Instant.now())
+                .build());
+    }
+}
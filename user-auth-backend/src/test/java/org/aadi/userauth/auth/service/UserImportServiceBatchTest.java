@@ -0,0 +1,120 @@
+package org.aadi.userauth.auth.service;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.dto.UserImportEvent;
+import org.aadi.userauth.auth.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+/** One batch through {@link UserImportService}, with an encoder that records what it hashes and fails on demand. */
+class UserImportServiceBatchTest extends PostgresIntegrationTest {
+
+    private static final String UNHASHABLE = "hashing-fails-for-this-one";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RegisteredEmailFilter registeredEmails;
+
+    private final Set<String> hashed = ConcurrentHashMap.newKeySet();
+    private UserImportService service;
+
+    @BeforeEach
+    void createService() {
+        PasswordEncoder recording = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence raw) {
+                hashed.add(raw.toString());
+                if (UNHASHABLE.contentEquals(raw)) {
+                    throw new IllegalArgumentException("cannot hash");
+                }
+                return "{noop}" + raw;
+            }
+
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                return encoded.equals("{noop}" + raw);
+            }
+        };
+        service = new UserImportService(jdbcTemplate, objectMapper, recording, registeredEmails, 100, 2, 1000);
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void oneBatchSkipsRegisteredEmailsBeforeHashingAndFailsDuplicatesAndUnhashableRows() throws Exception {
+        User existing = createUser(PASSWORD, "USER");
+        String fresh = "batch-" + UUID.randomUUID() + "@example.test";
+        String duplicated = "batch-" + UUID.randomUUID() + "@example.test";
+        String unhashable = "batch-" + UUID.randomUUID() + "@example.test";
+        String csv = String.join("\n",
+                "email,name,password",
+                fresh + ",Fresh,fresh-password",
+                existing.getEmail() + ",Existing,existing-password",
+                duplicated + ",First,first-password",
+                duplicated.toUpperCase() + ",Second,second-password",
+                unhashable + ",Unhashable," + UNHASHABLE);
+
+        List<UserImportEvent> events = importCsv(csv);
+
+        assertThat(events).filteredOn(e -> "error".equals(e.type()))
+                .extracting(UserImportEvent::line, UserImportEvent::error)
+                .containsExactlyInAnyOrder(
+                        tuple(3L, "Email already registered"),
+                        tuple(5L, "Duplicate email in import"),
+                        tuple(6L, "Could not hash password"));
+        UserImportEvent summary = events.get(events.size() - 1);
+        assertThat(summary.type()).isEqualTo("summary");
+        assertThat(summary.read()).isEqualTo(5);
+        assertThat(summary.imported()).isEqualTo(2);
+        assertThat(summary.skipped()).isEqualTo(1);
+        assertThat(summary.failed()).isEqualTo(2);
+
+        // The registered email and the duplicate never reached the encoder
+        assertThat(hashed).containsExactlyInAnyOrder("fresh-password", "first-password", UNHASHABLE);
+        assertThat(userRepository.findByEmail(fresh)).get().extracting(User::getPassword).isEqualTo("{noop}fresh-password");
+        assertThat(userRepository.findByEmail(duplicated)).get().extracting(User::getName).isEqualTo("First");
+        assertThat(userRepository.findByEmail(unhashable)).isEmpty();
+        assertThat(userRepository.findByEmail(existing.getEmail())).get().extracting(User::getPassword)
+                .isEqualTo(existing.getPassword());
+    }
+
+    @Test
+    void rerunningTheSameFileImportsNothingAndHashesNothing() throws Exception {
+        String csv = "email,password\nrerun-" + UUID.randomUUID() + "@example.test,rerun-password\n";
+        importCsv(csv);
+        hashed.clear();
+
+        List<UserImportEvent> events = importCsv(csv);
+
+        UserImportEvent summary = events.get(events.size() - 1);
+        assertThat(summary.imported()).isZero();
+        assertThat(summary.skipped()).isEqualTo(1);
+        assertThat(hashed).isEmpty();
+    }
+
+    private List<UserImportEvent> importCsv(String csv) throws Exception {
+        List<UserImportEvent> events = new ArrayList<>();
+        service.importUsers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                UserImportService.Format.CSV, events::add);
+        return events;
+    }
+}
@@ -0,0 +1,41 @@
+package org.aadi.userauth.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserImportServiceTest {
+
+    @Test
+    void splitsPlainFieldsOnCommas() {
+        assertThat(UserImportService.parseCsvLine("a@example.test,Ada,Secret-123"))
+                .containsExactly("a@example.test", "Ada", "Secret-123");
+    }
+
+    @Test
+    void keepsEmptyFieldsIncludingTrailingOnes() {
+        assertThat(UserImportService.parseCsvLine(",,")).containsExactly("", "", "");
+        assertThat(UserImportService.parseCsvLine("a@example.test,")).containsExactly("a@example.test", "");
+        assertThat(UserImportService.parseCsvLine("")).containsExactly("");
+    }
+
+    @Test
+    void quotedFieldsMayContainCommasAndDoubledQuotes() {
+        assertThat(UserImportService.parseCsvLine("a@example.test,\"Lovelace, Ada\",\"say \"\"hi\"\"\""))
+                .containsExactly("a@example.test", "Lovelace, Ada", "say \"hi\"");
+        assertThat(UserImportService.parseCsvLine("\"\",x")).containsExactly("", "x");
+    }
+
+    @Test
+    void aQuoteInsideAnUnquotedFieldIsKept() {
+        assertThat(UserImportService.parseCsvLine("a@example.test,O\"Brien")).containsExactly("a@example.test", "O\"Brien");
+    }
+
+    @Test
+    void rejectsAnUnterminatedQuotedField() {
+        assertThatThrownBy(() -> UserImportService.parseCsvLine("a@example.test,\"Lovelace, Ada"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unterminated");
+    }
+}
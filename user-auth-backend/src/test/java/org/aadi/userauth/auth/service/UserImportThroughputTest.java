@@ -0,0 +1,63 @@
+package org.aadi.userauth.auth.service;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.dto.UserImportEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Import rate against the configured database, not part of the regular build:
+ * {@code mvn test -Dtest=UserImportThroughputTest -Dimport.rows=1000000}. Passwords are pre-encoded bcrypt, so
+ * the figure is parsing and batched inserts; raw passwords add one hash per row on the import hashing pool.
+ */
+@EnabledIfSystemProperty(named = "import.rows", matches = "\\d+")
+class UserImportThroughputTest extends PostgresIntegrationTest {
+
+    // A well-formed cost-10 hash; every imported user gets it
+    private static final String ENCODED = "{bcrypt}$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void importsGeneratedCsvAndReportsRowsPerSecond() throws Exception {
+        int rows = Integer.getInteger("import.rows");
+        Path file = dir.resolve("users.csv");
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("email,name,password\n");
+            for (int i = 0; i < rows; i++) {
+                out.write("throughput-" + run + "-" + i + "@example.test,Imported User " + i + "," + ENCODED + "\n");
+            }
+        }
+
+        List<UserImportEvent> summaries = new ArrayList<>();
+        long started = System.nanoTime();
+        try (InputStream in = Files.newInputStream(file)) {
+            userImportService.importUsers(in, UserImportService.Format.CSV, event -> {
+                if ("summary".equals(event.type())) {
+                    summaries.add(event);
+                }
+            });
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        assertThat(summaries).singleElement().satisfies(s -> assertThat(s.imported()).isEqualTo(rows));
+        System.out.printf("Imported %d users in %.1f s: %.0f rows/s%n", rows, seconds, rows / seconds);
+    }
+}
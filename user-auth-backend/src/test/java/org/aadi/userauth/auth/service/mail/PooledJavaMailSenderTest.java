@@ -0,0 +1,151 @@
+package org.aadi.userauth.auth.service.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledJavaMailSenderTest {
+
+    @RegisterExtension
+    static final GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private CountingSender sender;
+
+    @AfterEach
+    void closePool() {
+        sender.destroy();
+    }
+
+    @Test
+    void messagesShareAConnectionUntilItHasSentTheLimit() {
+        sender = sender(1, 3, Duration.ofSeconds(30), 0);
+
+        sender.send(messages(7));
+
+        assertThat(smtp.getReceivedMessages()).hasSize(7);
+        assertThat(sender.opened).hasSize(3);
+        // The two full connections were closed on reaching the limit; the last one waits in the pool
+        assertThat(sender.opened).extracting(Transport::isConnected).containsExactly(false, false, true);
+    }
+
+    @Test
+    void aConnectionIsReusedAcrossSendCalls() {
+        sender = sender(1, 100, Duration.ofSeconds(30), 0);
+
+        for (SimpleMailMessage message : messages(5)) {
+            sender.send(message);
+        }
+
+        assertThat(smtp.getReceivedMessages()).hasSize(5);
+        assertThat(sender.opened).hasSize(1);
+    }
+
+    @Test
+    void idleConnectionsAreClosedAndReplacedOnTheNextSend() throws Exception {
+        sender = sender(1, 100, Duration.ofMillis(200), 0);
+        sender.send(messages(1));
+
+        sender.closeIdle();
+        assertThat(sender.opened.get(0).isConnected()).isTrue();
+
+        Thread.sleep(300);
+        sender.closeIdle();
+        assertThat(sender.opened.get(0).isConnected()).isFalse();
+
+        sender.send(messages(1));
+        assertThat(sender.opened).hasSize(2);
+        assertThat(smtp.getReceivedMessages()).hasSize(2);
+    }
+
+    @Test
+    void aConnectionLeftIdleTooLongIsNotReusedEvenBeforeTheSweep() throws Exception {
+        sender = sender(1, 100, Duration.ofMillis(200), 0);
+        sender.send(messages(1));
+
+        Thread.sleep(300);
+        sender.send(messages(1));
+
+        assertThat(sender.opened).hasSize(2);
+        assertThat(sender.opened.get(0).isConnected()).isFalse();
+    }
+
+    @Test
+    void sendsArePacedAcrossConcurrentCallers() {
+        // 20 per second: 12 messages from two callers take at least 11 intervals of 50ms
+        sender = sender(2, 100, Duration.ofSeconds(30), 20);
+
+        long started = System.nanoTime();
+        CompletableFuture<?>[] callers = IntStream.range(0, 2)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> sender.send(messages(6))))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(callers).join();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertThat(smtp.getReceivedMessages()).hasSize(12);
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(550));
+        assertThat(sender.opened).hasSize(2);
+    }
+
+    @Test
+    void whenNoConnectionCanBeOpenedEveryMessageIsReportedFailed() {
+        sender = sender(1, 100, Duration.ofSeconds(30), 0);
+        sender.setPort(smtp.getSmtp().getPort() + 1);
+        SimpleMailMessage[] batch = messages(3);
+
+        assertThatThrownBy(() -> sender.send(batch))
+                .isInstanceOfSatisfying(MailSendException.class,
+                        ex -> assertThat(ex.getFailedMessages()).containsOnlyKeys((Object[]) batch));
+    }
+
+    private static CountingSender sender(int poolSize, int maxMessagesPerConnection, Duration maxIdle,
+                                         double maxMessagesPerSecond) {
+        CountingSender sender = new CountingSender(poolSize, maxMessagesPerConnection, maxIdle, maxMessagesPerSecond);
+        sender.setHost(smtp.getSmtp().getBindTo());
+        sender.setPort(smtp.getSmtp().getPort());
+        return sender;
+    }
+
+    private static SimpleMailMessage[] messages(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom("noreply@example.test");
+            message.setTo("user-" + i + "@example.test");
+            message.setSubject("Message " + i);
+            message.setText("Body " + i);
+            return message;
+        }).toArray(SimpleMailMessage[]::new);
+    }
+
+    /** Remembers every connection the pool opens. */
+    private static final class CountingSender extends PooledJavaMailSender {
+
+        private final List<Transport> opened = new CopyOnWriteArrayList<>();
+
+        private CountingSender(int poolSize, int maxMessagesPerConnection, Duration maxIdle,
+                               double maxMessagesPerSecond) {
+            super(poolSize, maxMessagesPerConnection, maxIdle, Duration.ofSeconds(5), maxMessagesPerSecond);
+        }
+
+        @Override
+        protected Transport connectTransport() throws MessagingException {
+            Transport transport = super.connectTransport();
+            opened.add(transport);
+            return transport;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.aadi.userauth.auth.service.otp;
+
+import org.aadi.userauth.auth.model.Otp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryOtpStoreTest {
+
+    private static final Otp.OtpType REGISTER = Otp.OtpType.REGISTER;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void consumeAcceptsTheStoredCodeOnce() {
+        InMemoryOtpStore store = new InMemoryOtpStore(100, Duration.ofSeconds(1), 1024);
+        store.save("a@example.test", REGISTER, "123456", inMinutes(10));
+
+        assertThat(store.consume("a@example.test", REGISTER, "000000")).isFalse();
+        assertThat(store.consume("a@example.test", Otp.OtpType.RESET, "123456")).isFalse();
+        assertThat(store.consume("a@example.test", REGISTER, "123456")).isTrue();
+        assertThat(store.consume("a@example.test", REGISTER, "123456")).isFalse();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void aNewCodeReplacesTheEarlierOne() {
+        InMemoryOtpStore store = new InMemoryOtpStore(100, Duration.ofSeconds(1), 1024);
+        store.save("a@example.test", REGISTER, "111111", inMinutes(10));
+        store.save("a@example.test", REGISTER, "222222", inMinutes(10));
+
+        assertThat(store.consume("a@example.test", REGISTER, "111111")).isFalse();
+        assertThat(store.consume("a@example.test", REGISTER, "222222")).isTrue();
+    }
+
+    @Test
+    void expiredCodesAreRejectedAndDrainedByTheWheel() throws InterruptedException {
+        InMemoryOtpStore store = new InMemoryOtpStore(100, Duration.ofMillis(10), 64);
+        store.save("a@example.test", REGISTER, "123456", Instant.now().plusMillis(30));
+        store.save("b@example.test", REGISTER, "123456", Instant.now().plusMillis(30));
+        store.save("c@example.test", REGISTER, "123456", inMinutes(10));
+        assertThat(store.size()).isEqualTo(3);
+
+        Thread.sleep(80);
+
+        assertThat(store.consume("a@example.test", REGISTER, "123456")).isFalse();
+        // b was never touched again; the wheel removed it when its tick ended
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.consume("c@example.test", REGISTER, "123456")).isTrue();
+    }
+
+    @Test
+    void codesDueInALaterWheelRoundSurviveTheirSlotBeingDrained() throws InterruptedException {
+        // 4 slots of 10 ms: a code due in 100 ms shares its slot with ticks drained before it expires
+        InMemoryOtpStore store = new InMemoryOtpStore(100, Duration.ofMillis(10), 4);
+        store.save("a@example.test", REGISTER, "123456", Instant.now().plusMillis(100));
+
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(10);
+            store.invalidate("other@example.test", REGISTER);
+        }
+
+        assertThat(store.consume("a@example.test", REGISTER, "123456")).isTrue();
+    }
+
+    @Test
+    void newIdentitiesBeyondTheCapacityAreRefusedButReplacementsAreNot() {
+        InMemoryOtpStore store = new InMemoryOtpStore(2, Duration.ofSeconds(1), 1024);
+        store.save("a@example.test", REGISTER, "111111", inMinutes(10));
+        store.save("b@example.test", REGISTER, "111111", inMinutes(10));
+
+        assertThatThrownBy(() -> store.save("c@example.test", REGISTER, "111111", inMinutes(10)))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("503");
+        store.save("a@example.test", REGISTER, "222222", inMinutes(10));
+        assertThat(store.consume("a@example.test", REGISTER, "222222")).isTrue();
+        store.save("c@example.test", REGISTER, "111111", inMinutes(10));
+    }
+
+    @Test
+    void resetCodesDoNotTakeTheCapacityOfRegistrationCodes() {
+        InMemoryOtpStore store = new InMemoryOtpStore(2, Duration.ofSeconds(1), 1024);
+        store.save("a@example.test", Otp.OtpType.RESET, "111111", inMinutes(10));
+        store.save("b@example.test", Otp.OtpType.RESET, "111111", inMinutes(10));
+        assertThatThrownBy(() -> store.save("c@example.test", Otp.OtpType.RESET, "111111", inMinutes(10)))
+                .isInstanceOf(ResponseStatusException.class);
+
+        store.save("c@example.test", REGISTER, "111111", inMinutes(10));
+        assertThat(store.consume("c@example.test", REGISTER, "111111")).isTrue();
+    }
+
+    @Test
+    void repeatedSavesOfOneKeyKeepItInOneSlot() {
+        InMemoryOtpStore store = new InMemoryOtpStore(100, Duration.ofMillis(1), 1024);
+        Instant expiry = inMinutes(10);
+        for (int i = 0; i < 10_000; i++) {
+            // Every second save moves the code to another slot; the rest keep it where it is
+            store.save("a@example.test", REGISTER, "123456", expiry.plusMillis(i % 2 == 0 ? 0 : i % 512));
+            assertThat(store.queued()).isEqualTo(1);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            store.save("a@example.test", REGISTER, "123456", expiry);
+            if (i % 2 == 0) {
+                assertThat(store.consume("a@example.test", REGISTER, "123456")).isTrue();
+            } else {
+                store.burn("a@example.test", REGISTER);
+            }
+            assertThat(store.queued()).isZero();
+        }
+        store.save("a@example.test", REGISTER, "123456", expiry);
+        store.invalidate("a@example.test", REGISTER);
+        assertThat(store.queued()).isZero();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void savesRacingWithTheWheelAllExpire() throws Exception {
+        InMemoryOtpStore store = new InMemoryOtpStore(1_000_000, Duration.ofMillis(1), 8);
+        int threads = 4;
+        int savesPerThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            done.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < savesPerThread; i++) {
+                    // Due within the next couple of ticks, so saves keep landing in slots being drained
+                    store.save(thread + "-" + i + "@example.test", REGISTER, "123456", Instant.now().plusMillis(2));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : done) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // Two full wheel rounds: every queued code has been drained by now unless its key was lost
+        Thread.sleep(30);
+        store.invalidate("other@example.test", REGISTER);
+        assertThat(store.size()).isZero();
+        assertThat(store.queued()).isZero();
+    }
+
+    @Test
+    void changesInsideATransactionApplyOnlyAfterCommit() {
+        InMemoryOtpStore store = new InMemoryOtpStore(100, Duration.ofSeconds(1), 1024);
+        store.save("a@example.test", REGISTER, "111111", inMinutes(10));
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.save("a@example.test", REGISTER, "222222", inMinutes(10));
+        rollBack();
+        assertThat(store.consume("a@example.test", REGISTER, "222222")).isFalse();
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.save("a@example.test", REGISTER, "333333", inMinutes(10));
+        assertThat(store.size()).isEqualTo(1);
+        commit();
+        assertThat(store.consume("a@example.test", REGISTER, "111111")).isFalse();
+        assertThat(store.consume("a@example.test", REGISTER, "333333")).isTrue();
+    }
+
+    @Test
+    void burnActsAtOnceInsideATransaction() {
+        InMemoryOtpStore store = new InMemoryOtpStore(100, Duration.ofSeconds(1), 1024);
+        store.save("a@example.test", REGISTER, "111111", inMinutes(10));
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.burn("a@example.test", REGISTER);
+        rollBack();
+
+        assertThat(store.size()).isZero();
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static void rollBack() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static Instant inMinutes(int minutes) {
+        return Instant.now().plus(Duration.ofMinutes(minutes));
+    }
+}
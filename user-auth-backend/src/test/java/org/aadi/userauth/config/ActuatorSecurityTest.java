@@ -0,0 +1,25 @@
+package org.aadi.userauth.config;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ActuatorSecurityTest extends PostgresIntegrationTest {
+
+    @Test
+    void healthIsPublic() throws Exception {
+        mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void metricsRequireTheAdminRole() throws Exception {
+        mvc.perform(get("/actuator/metrics")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, bearer(createUser(PASSWORD, "USER"))))
+                .andExpect(status().isForbidden());
+        mvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, adminBearer("ROLE_ADMIN")))
+                .andExpect(status().isOk());
+    }
+}
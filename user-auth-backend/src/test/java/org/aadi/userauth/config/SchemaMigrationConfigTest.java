@@ -0,0 +1,75 @@
+package org.aadi.userauth.config;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SchemaMigrationConfigTest extends PostgresIntegrationTest {
+
+    private static final String SCHEMA = "legacy_jti";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void aVarcharJtiStopsStartupBeforeAnyMigrationRuns() {
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        jdbcTemplate.execute("CREATE TABLE " + SCHEMA + ".refresh_tokens (id uuid PRIMARY KEY, jti varchar(64) NOT NULL)");
+
+        assertThatThrownBy(() -> new SchemaMigrationConfig().checkedMigration().migrate(flyway()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("refresh_tokens.jti is character varying, not uuid: "
+                        + "run db/refresh_tokens_uuid_jti.sql once before starting");
+        assertThat(tables()).containsExactly("refresh_tokens");
+    }
+
+    @Test
+    void aSchemaFromBeforeFlywayIsBaselinedAndBroughtUpToDate() {
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        jdbcTemplate.execute("""
+                CREATE TABLE %s.users (id uuid PRIMARY KEY, provider_id varchar(255), email varchar(255) NOT NULL UNIQUE,
+                    name varchar(255), password varchar(255), image varchar(255), mobile varchar(255),
+                    enabled boolean NOT NULL, created_at timestamptz, updated_at timestamptz, provider varchar(255))
+                """.formatted(SCHEMA));
+
+        new SchemaMigrationConfig().checkedMigration().migrate(flyway());
+
+        assertThat(tables()).contains("users", "refresh_tokens", "otps", "email_outbox", "flyway_schema_history");
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT version FROM " + SCHEMA + ".flyway_schema_history ORDER BY installed_rank", String.class))
+                .startsWith("0", "1");
+    }
+
+    private Flyway flyway() {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(SCHEMA)
+                .defaultSchema(SCHEMA)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load();
+    }
+
+    private List<String> tables() {
+        return jdbcTemplate.queryForList(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = ? ORDER BY table_name",
+                String.class, SCHEMA);
+    }
+}
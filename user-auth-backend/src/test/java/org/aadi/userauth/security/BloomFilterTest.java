@@ -0,0 +1,101 @@
+package org.aadi.userauth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @Test
+    void everyAddedValueIsReported() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user-" + i + "@example.test");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user-" + i + "@example.test")).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositivesStayNearTheTargetRateAtTheExpectedSize() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user-" + i + "@example.test");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i + "@example.test")) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.estimatedFalsePositiveRate()).isBetween(0.005, 0.02);
+    }
+
+    @Test
+    void isSizedFromTheExpectedEntriesAndRate() {
+        // m = -n ln p / (ln 2)^2 = 95,851 bits for n = 10,000 and p = 1%; k = m/n ln 2 = 7
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        assertThat(filter.sizeInBytes()).isEqualTo((95_851 + 63) / 64 * 8L);
+        assertThat(filter.hashCount()).isEqualTo(7);
+    }
+
+    @Test
+    void anEmptyCopyHasTheSameShapeAndNoEntries() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        filter.add("taken@example.test");
+
+        BloomFilter copy = filter.emptyCopy();
+
+        assertThat(copy.sizeInBytes()).isEqualTo(filter.sizeInBytes());
+        assertThat(copy.hashCount()).isEqualTo(filter.hashCount());
+        assertThat(copy.mightContain("taken@example.test")).isFalse();
+        assertThat(copy.estimatedFalsePositiveRate()).isZero();
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        BloomFilter filter = new BloomFilter(40_000, 0.01);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> adds = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                adds.add(pool.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        filter.add("user-" + thread + "-" + i);
+                    }
+                }));
+            }
+            for (Future<?> add : adds) {
+                add.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int t = 0; t < 4; t++) {
+            for (int i = 0; i < 10_000; i++) {
+                assertThat(filter.mightContain("user-" + t + "-" + i)).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void rejectsImpossibleSizing() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(1_000, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(1_000, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
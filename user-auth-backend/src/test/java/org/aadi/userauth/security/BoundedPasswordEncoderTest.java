@@ -0,0 +1,96 @@
+package org.aadi.userauth.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void encodesAndMatchesThroughTheWrappedEncoder() {
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new ReversingEncoder(), 1, 1, 1,
+                new SimpleMeterRegistry())) {
+            assertThat(encoder.encode("secret")).isEqualTo("terces");
+            assertThat(encoder.matches("secret", "terces")).isTrue();
+            assertThat(encoder.matches("secret", "secret")).isFalse();
+        }
+    }
+
+    @Test
+    void aFullQueueFailsFastWithTheRetryAfter() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new ReversingEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 1, 1, 7, meterRegistry)) {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+            while (meterRegistry.get("password.hashing.queue.depth").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            assertThatThrownBy(() -> encoder.encode("third"))
+                    .isInstanceOfSatisfying(PasswordHashingSaturatedException.class,
+                            e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(7));
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("tsrif");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("dnoces");
+        }
+    }
+
+    @Test
+    void exceptionsFromTheWrappedEncoderReachTheCaller() {
+        PasswordEncoder failing = new ReversingEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new IllegalArgumentException("password too long");
+            }
+        };
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(failing, 1, 1, 1, new SimpleMeterRegistry())) {
+            assertThatThrownBy(() -> encoder.encode("secret"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("password too long");
+        }
+    }
+
+    @Test
+    void unboundedIsTheWrappedEncoder() {
+        PasswordEncoder delegate = new ReversingEncoder();
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 1, 1, 1, new SimpleMeterRegistry())) {
+            assertThat(encoder.unbounded()).isSameAs(delegate);
+        }
+    }
+
+    private static class ReversingEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return new StringBuilder(rawPassword).reverse().toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.aadi.userauth.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private static final UUID USER = UUID.randomUUID();
+
+    private final VerifiedTokenCache tokenCache = mock(VerifiedTokenCache.class);
+    private final AccessTokenRevocationList revocations = mock(AccessTokenRevocationList.class);
+    private final PrincipalCache principalCache = mock(PrincipalCache.class);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void aTokenAtTheCurrentEpochAuthenticates() throws Exception {
+        TokenEpochRegistry epochs = new TokenEpochRegistry(300);
+        when(tokenCache.verify("old")).thenReturn(token(epochs.currentEpoch(USER)));
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = filter(filter(epochs), "old", chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("user@example.test");
+    }
+
+    @Test
+    void advancingTheEpochRejectsEarlierTokensButNotLaterOnes() throws Exception {
+        TokenEpochRegistry epochs = new TokenEpochRegistry(300);
+        when(tokenCache.verify("old")).thenReturn(token(epochs.currentEpoch(USER)));
+        epochs.advance(USER);
+        when(tokenCache.verify("new")).thenReturn(token(epochs.currentEpoch(USER)));
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletRequest request = request("old");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter(epochs).doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(request.getAttribute("exception")).isEqualTo("invalid_token");
+        assertThat(chain.getRequest()).isNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+        assertThat(filter(filter(epochs), "new", new MockFilterChain()).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void epochsArePerNodeSoAnotherNodeStillAcceptsTheEarlierToken() throws Exception {
+        TokenEpochRegistry thisNode = new TokenEpochRegistry(300);
+        TokenEpochRegistry otherNode = new TokenEpochRegistry(300);
+        when(tokenCache.verify("old")).thenReturn(token(thisNode.currentEpoch(USER)));
+        thisNode.advance(USER);
+
+        assertThat(filter(filter(thisNode), "old", new MockFilterChain()).getStatus()).isEqualTo(401);
+        // The limitation documented at security.jwt.claims-only-auth
+        assertThat(filter(filter(otherNode), "old", new MockFilterChain()).getStatus()).isEqualTo(200);
+    }
+
+    private JwtAuthenticationFilter filter(TokenEpochRegistry epochs) {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenCache, epochs, revocations, principalCache);
+        ReflectionTestUtils.setField(filter, "claimsOnlyAuth", true);
+        return filter;
+    }
+
+    private MockHttpServletResponse filter(JwtAuthenticationFilter filter, String token, MockFilterChain chain) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(token), response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/auth/me");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        return request;
+    }
+
+    private static VerifiedToken token(long epoch) {
+        return new VerifiedToken(VerifiedToken.TYPE_ACCESS, UUID.randomUUID().toString(), USER, "user@example.test",
+                List.of("USER"), epoch, Instant.now().plus(Duration.ofMinutes(5)));
+    }
+}
@@ -0,0 +1,195 @@
+package org.aadi.userauth.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import org.aadi.userauth.auth.model.JwtSigningKey;
+import org.aadi.userauth.auth.model.JwtSigningKey.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SigningKeyRingTest {
+
+    private static final String SECRET = "x".repeat(64);
+
+    private final SigningKeyStore store = mock(SigningKeyStore.class);
+    /** Rows of jwt_signing_keys, as the store would return them. */
+    private final List<JwtSigningKey> table = new ArrayList<>();
+    private Supplier<JwtSigningKey> generator;
+
+    @BeforeEach
+    void storeCreatesAnActiveAndANextKeyOnFirstUse() {
+        when(store.synchronize(any(), any(), any(), any())).thenAnswer(invocation -> {
+            generator = invocation.getArgument(3);
+            if (table.isEmpty()) {
+                table.add(withStatus(generator.get(), Status.ACTIVE));
+                table.add(withStatus(generator.get(), Status.NEXT));
+            }
+            return List.copyOf(table);
+        });
+    }
+
+    @Test
+    void privateKeysAreStoredSealedAndOpenedBackForSigning() throws Exception {
+        SigningKeyRing ring = ring(SECRET);
+        byte[] pkcs8 = ring.active().privateKey().getEncoded();
+        byte[] sealed = row(ring.active().kid()).getSealedPrivateKey();
+
+        // 12-byte IV, ciphertext, 16-byte tag
+        assertThat(sealed).hasSize(12 + pkcs8.length + 16);
+        assertThat(new String(sealed, StandardCharsets.ISO_8859_1))
+                .doesNotContain(new String(pkcs8, StandardCharsets.ISO_8859_1));
+
+        Signature signer = Signature.getInstance("SHA256withECDSA");
+        signer.initSign(ring.active().privateKey());
+        signer.update("payload".getBytes(StandardCharsets.UTF_8));
+        byte[] signature = signer.sign();
+
+        // A second instance opens the same rows and verifies what the first signed
+        Signature verifier = Signature.getInstance("SHA256withECDSA");
+        verifier.initVerify((ECPublicKey) ring(SECRET).verificationKey(ring.active().kid()));
+        verifier.update("payload".getBytes(StandardCharsets.UTF_8));
+        assertThat(verifier.verify(signature)).isTrue();
+    }
+
+    @Test
+    void keysSealedUnderAnotherSecretOrTamperedWithAreRefused() {
+        SigningKeyRing ring = ring(SECRET);
+
+        assertThatThrownBy(() -> ring("y".repeat(64)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("was security.jwt.secret changed?");
+
+        row(ring.active().kid()).getSealedPrivateKey()[20] ^= 1;
+        assertThatThrownBy(() -> ring(SECRET))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(ring.active().kid());
+    }
+
+    @Test
+    void verificationKeysAreLookedUpByKid() {
+        SigningKeyRing ring = ring(SECRET);
+        JwtSigningKey next = table.get(1);
+
+        assertThat(ring.verificationKey(next.getKid()).getEncoded()).isEqualTo(next.getPublicKey());
+        assertThat(ring.verificationKey(UUID.randomUUID().toString())).isNull();
+        assertThat(ring.verificationKey(null)).isNull();
+    }
+
+    @Test
+    void aTokenSignedByAnUnknownKidIsRejected() throws Exception {
+        JwtService jwtService = jwtService(ring(SECRET));
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+
+        String forged = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, UUID.randomUUID().toString())
+                .setSubject(UUID.randomUUID().toString())
+                .claim("typ", VerifiedToken.TYPE_ACCESS)
+                .setExpiration(Date.from(Instant.now().plusSeconds(300)))
+                .signWith(generator.generateKeyPair().getPrivate(), SignatureAlgorithm.ES256)
+                .compact();
+
+        assertThatThrownBy(() -> jwtService.verify(forged))
+                .isInstanceOf(UnsupportedJwtException.class)
+                .hasMessage("Unknown signing key id");
+    }
+
+    @Test
+    void aRetiredKeyStopsSigningButVerifiesUntilItIsDeleted() {
+        SigningKeyRing ring = ring(SECRET);
+        JwtService jwtService = jwtService(ring);
+        String oldKid = ring.active().kid();
+        String token = jwtService.generateAccessToken(principal());
+
+        // What SigningKeyStore#synchronize does once the active key is due
+        JwtSigningKey retired = row(oldKid);
+        retired.setStatus(Status.RETIRED);
+        retired.setRetireAt(Instant.now().plus(Duration.ofMinutes(6)));
+        table.get(1).setStatus(Status.ACTIVE);
+        table.add(withStatus(generator.get(), Status.NEXT));
+        ring.synchronize();
+
+        assertThat(ring.active().kid()).isEqualTo(table.get(1).getKid());
+        assertThat(jwtService.verify(token).subject()).isEqualTo(principal().id());
+        assertThat(jwtService.parse(jwtService.generateAccessToken(principal())).getHeader().getKeyId())
+                .isEqualTo(table.get(1).getKid());
+
+        // Deleted by the store once every token it signed has expired
+        table.remove(retired);
+        ring.synchronize();
+
+        assertThat(ring.verificationKey(oldKid)).isNull();
+        assertThatThrownBy(() -> jwtService.verify(token)).isInstanceOf(UnsupportedJwtException.class);
+    }
+
+    @Test
+    void publicJwksDescribeEveryStoredKey() {
+        SigningKeyRing ring = ring(SECRET);
+
+        List<Map<String, Object>> jwks = ring.publicJwks();
+
+        assertThat(jwks).extracting(jwk -> jwk.get("kid")).containsExactly(table.get(0).getKid(), table.get(1).getKid());
+        for (Map<String, Object> jwk : jwks) {
+            assertThat(jwk).containsEntry("kty", "EC").containsEntry("crv", "P-256")
+                    .containsEntry("use", "sig").containsEntry("alg", "ES256")
+                    .doesNotContainKey("d");
+            ECPublicKey key = (ECPublicKey) ring.verificationKey((String) jwk.get("kid"));
+            assertThat(coordinate(jwk.get("x"))).isEqualTo(key.getW().getAffineX());
+            assertThat(coordinate(jwk.get("y"))).isEqualTo(key.getW().getAffineY());
+        }
+    }
+
+    private SigningKeyRing ring(String secret) {
+        SigningKeyRing ring = new SigningKeyRing(store, "ES256", secret, 300, Duration.ofHours(24), Duration.ofMinutes(1));
+        ring.load();
+        return ring;
+    }
+
+    private static JwtService jwtService(SigningKeyRing ring) {
+        return new JwtService(SECRET, 300, 2592000, "user-auth-backend", "HS512", new TokenEpochRegistry(300), ring);
+    }
+
+    private static CachedPrincipal principal() {
+        return new CachedPrincipal(new UUID(0, 1), "user@example.test", true, List.of("USER"));
+    }
+
+    private JwtSigningKey row(String kid) {
+        return table.stream().filter(k -> k.getKid().equals(kid)).findFirst().orElseThrow();
+    }
+
+    private static JwtSigningKey withStatus(JwtSigningKey key, Status status) {
+        key.setStatus(status);
+        return key;
+    }
+
+    /** Unsigned big-endian value of a JWK coordinate, which is always 32 bytes for P-256. */
+    private static BigInteger coordinate(Object base64Url) {
+        byte[] bytes = Base64.getUrlDecoder().decode((String) base64Url);
+        assertThat(bytes).hasSize(32);
+        return new BigInteger(1, bytes);
+    }
+}
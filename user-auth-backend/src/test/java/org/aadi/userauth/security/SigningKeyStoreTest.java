@@ -0,0 +1,127 @@
+package org.aadi.userauth.security;
+
+import org.aadi.userauth.PostgresIntegrationTest;
+import org.aadi.userauth.auth.model.JwtSigningKey;
+import org.aadi.userauth.auth.model.JwtSigningKey.Status;
+import org.aadi.userauth.auth.repository.JwtSigningKeyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SigningKeyStoreTest extends PostgresIntegrationTest {
+
+    private static final Duration ROTATION = Duration.ofHours(24);
+    private static final Duration RETIRED_FOR = Duration.ofMinutes(6);
+
+    @Autowired
+    private SigningKeyStore store;
+
+    @Autowired
+    private JwtSigningKeyRepository repository;
+
+    private final AtomicInteger generated = new AtomicInteger();
+
+    @BeforeEach
+    @AfterEach
+    void emptyKeyRing() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void theFirstCallCreatesAnActiveAndANextKey() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+        List<JwtSigningKey> keys = store.synchronize(now, ROTATION, RETIRED_FOR, this::generate);
+
+        assertThat(keys).extracting(JwtSigningKey::getStatus).containsExactlyInAnyOrder(Status.ACTIVE, Status.NEXT);
+        assertThat(keyWith(keys, Status.ACTIVE).getActivatedAt()).isEqualTo(now);
+        assertThat(store.synchronize(now.plusSeconds(60), ROTATION, RETIRED_FOR, this::generate)).hasSize(2);
+        assertThat(generated).hasValue(2);
+    }
+
+    @Test
+    void aDueKeyIsRetiredTheNextOnePromotedAndTheRetiredOneKeptUntilItsTokensExpire() {
+        Instant start = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<JwtSigningKey> initial = store.synchronize(start, ROTATION, RETIRED_FOR, this::generate);
+        String firstActive = keyWith(initial, Status.ACTIVE).getKid();
+        String firstNext = keyWith(initial, Status.NEXT).getKid();
+
+        Instant rotation = start.plus(ROTATION);
+        List<JwtSigningKey> rotated = store.synchronize(rotation, ROTATION, RETIRED_FOR, this::generate);
+
+        assertThat(rotated).hasSize(3);
+        JwtSigningKey retired = keyWith(rotated, Status.RETIRED);
+        assertThat(retired.getKid()).isEqualTo(firstActive);
+        assertThat(retired.getRetireAt()).isEqualTo(rotation.plus(RETIRED_FOR));
+        assertThat(keyWith(rotated, Status.ACTIVE).getKid()).isEqualTo(firstNext);
+        assertThat(keyWith(rotated, Status.ACTIVE).getActivatedAt()).isEqualTo(rotation);
+        assertThat(keyWith(rotated, Status.NEXT).getKid()).isNotIn(firstActive, firstNext);
+
+        // Still published while tokens it signed may be valid, then deleted
+        assertThat(store.synchronize(rotation.plus(RETIRED_FOR), ROTATION, RETIRED_FOR, this::generate))
+                .extracting(JwtSigningKey::getKid).contains(firstActive);
+        assertThat(store.synchronize(rotation.plus(RETIRED_FOR).plusSeconds(1), ROTATION, RETIRED_FOR, this::generate))
+                .extracting(JwtSigningKey::getKid).doesNotContain(firstActive).hasSize(2);
+    }
+
+    @Test
+    void concurrentInstancesRotateADueKeyOnce() throws Exception {
+        Instant start = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        store.synchronize(start, ROTATION, RETIRED_FOR, this::generate);
+        Instant rotation = start.plus(ROTATION);
+
+        // The first instance holds the key ring lock while it generates; the second has to wait for its commit
+        CountDownLatch generating = new CountDownLatch(1);
+        Supplier<JwtSigningKey> slowGenerator = () -> {
+            generating.countDown();
+            sleep(500);
+            return generate();
+        };
+        CompletableFuture<List<JwtSigningKey>> first = CompletableFuture.supplyAsync(
+                () -> store.synchronize(rotation, ROTATION, RETIRED_FOR, slowGenerator));
+        generating.await();
+        CompletableFuture<List<JwtSigningKey>> second = CompletableFuture.supplyAsync(
+                () -> store.synchronize(rotation, ROTATION, RETIRED_FOR, this::generate));
+
+        assertThat(first.get()).extracting(JwtSigningKey::getKid)
+                .containsExactlyElementsOf(second.get().stream().map(JwtSigningKey::getKid).toList());
+        assertThat(repository.findAll()).extracting(JwtSigningKey::getStatus)
+                .containsExactlyInAnyOrder(Status.RETIRED, Status.ACTIVE, Status.NEXT);
+        assertThat(generated).hasValue(3);
+    }
+
+    /** A key as {@link SigningKeyRing} would generate it; the store never looks inside the key material. */
+    private JwtSigningKey generate() {
+        generated.incrementAndGet();
+        return JwtSigningKey.builder()
+                .kid(UUID.randomUUID().toString())
+                .publicKey(new byte[]{1})
+                .sealedPrivateKey(new byte[]{2})
+                .build();
+    }
+
+    private static JwtSigningKey keyWith(List<JwtSigningKey> keys, Status status) {
+        return keys.stream().filter(k -> k.getStatus() == status).findFirst().orElseThrow();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
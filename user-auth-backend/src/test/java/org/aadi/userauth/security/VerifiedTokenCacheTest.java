@@ -0,0 +1,76 @@
+package org.aadi.userauth.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VerifiedTokenCacheTest {
+
+    private final JwtService jwtService = mock(JwtService.class);
+
+    @Test
+    void aTokenIsVerifiedOnceAndThenServedFromTheCache() {
+        VerifiedToken token = token(Instant.now().plus(Duration.ofMinutes(5)));
+        when(jwtService.verify("a.b.c")).thenReturn(token);
+        VerifiedTokenCache cache = cache(true);
+
+        assertThat(cache.verify("a.b.c")).isSameAs(token);
+        assertThat(cache.verify("a.b.c")).isSameAs(token);
+
+        verify(jwtService, times(1)).verify("a.b.c");
+    }
+
+    @Test
+    void whenDisabledEveryCallIsVerified() {
+        when(jwtService.verify("a.b.c")).thenReturn(token(Instant.now().plus(Duration.ofMinutes(5))));
+        VerifiedTokenCache cache = cache(false);
+
+        cache.verify("a.b.c");
+        cache.verify("a.b.c");
+
+        verify(jwtService, times(2)).verify("a.b.c");
+    }
+
+    @Test
+    void aTokenPastItsExpiryIsNotServedFromTheCache() {
+        when(jwtService.verify("a.b.c")).thenReturn(token(Instant.now().minusSeconds(1)));
+        VerifiedTokenCache cache = cache(true);
+
+        cache.verify("a.b.c");
+        cache.verify("a.b.c");
+
+        verify(jwtService, times(2)).verify("a.b.c");
+    }
+
+    @Test
+    void rejectedTokensAreNotCached() {
+        when(jwtService.verify("a.b.c")).thenThrow(new ExpiredJwtException(null, null, "expired"));
+        VerifiedTokenCache cache = cache(true);
+
+        assertThatThrownBy(() -> cache.verify("a.b.c")).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> cache.verify("a.b.c")).isInstanceOf(ExpiredJwtException.class);
+
+        verify(jwtService, times(2)).verify("a.b.c");
+    }
+
+    private VerifiedTokenCache cache(boolean enabled) {
+        return new VerifiedTokenCache(jwtService, new SimpleMeterRegistry(), enabled, 100, 300);
+    }
+
+    private static VerifiedToken token(Instant expiresAt) {
+        return new VerifiedToken(VerifiedToken.TYPE_ACCESS, UUID.randomUUID().toString(), UUID.randomUUID(),
+                "user@example.test", List.of("ROLE_USER"), 0, expiresAt);
+    }
+}
@@ -0,0 +1,105 @@
+package org.aadi.userauth.security.password;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BreachedPasswordIndexTest {
+
+    private static final int BREACHED = 50;
+
+    @TempDir
+    static Path dir;
+
+    private static Path indexFile;
+    private static List<String> byDigest;
+
+    @BeforeAll
+    static void writeSortedIndex() throws Exception {
+        byDigest = new ArrayList<>();
+        for (int i = 0; i < BREACHED; i++) {
+            byDigest.add("breached-" + i);
+        }
+        byDigest.sort(Comparator.comparing(BreachedPasswordIndexTest::sha1, Arrays::compareUnsigned));
+        byte[] records = new byte[BREACHED * BreachedPasswordIndex.RECORD_BYTES];
+        for (int i = 0; i < BREACHED; i++) {
+            System.arraycopy(sha1(byDigest.get(i)), 0, records, i * BreachedPasswordIndex.RECORD_BYTES,
+                    BreachedPasswordIndex.RECORD_BYTES);
+        }
+        indexFile = Files.write(dir.resolve("breached.sha1"), records);
+    }
+
+    // 1 and 7 split the file into many segments, the last one partial; 1000 maps it as one
+    @ParameterizedTest
+    @ValueSource(longs = {1, 7, 1000})
+    void findsEveryBreachedPasswordIncludingTheFirstAndLastRecord(long recordsPerSegment) throws IOException {
+        BreachedPasswordIndex index = new BreachedPasswordIndex(indexFile.toString(), recordsPerSegment);
+
+        assertThat(index.isEnabled()).isTrue();
+        assertThat(index.contains(byDigest.get(0))).isTrue();
+        assertThat(index.contains(byDigest.get(BREACHED - 1))).isTrue();
+        assertThat(byDigest).allMatch(index::contains);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 7, 1000})
+    void missesPasswordsThatAreNotInTheFile(long recordsPerSegment) throws IOException {
+        BreachedPasswordIndex index = new BreachedPasswordIndex(indexFile.toString(), recordsPerSegment);
+
+        for (int i = 0; i < BREACHED; i++) {
+            assertThat(index.contains("not-breached-" + i)).isFalse();
+        }
+    }
+
+    @Test
+    void comparesDigestsWithTheHighBitSetAsUnsigned() throws IOException {
+        // Signed comparison would sort these before every digest starting below 0x80 and search the wrong half
+        List<String> highBit = byDigest.stream().filter(password -> sha1(password)[0] < 0).toList();
+        assertThat(highBit).isNotEmpty().hasSizeLessThan(BREACHED);
+
+        BreachedPasswordIndex index = new BreachedPasswordIndex(indexFile.toString(), 7);
+
+        assertThat(highBit).allMatch(index::contains);
+        assertThat(sha1(byDigest.get(BREACHED - 1))[0]).isNegative();
+    }
+
+    @Test
+    void rejectsAFileThatIsNotWholeRecords() throws IOException {
+        Path truncated = Files.write(dir.resolve("truncated.sha1"), new byte[BreachedPasswordIndex.RECORD_BYTES + 1]);
+
+        assertThatThrownBy(() -> new BreachedPasswordIndex(truncated.toString(), 7))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void withoutAPathEveryPasswordPasses() throws IOException {
+        BreachedPasswordIndex index = new BreachedPasswordIndex("", 7);
+
+        assertThat(index.isEnabled()).isFalse();
+        assertThat(index.contains(byDigest.get(0))).isFalse();
+    }
+
+    private static byte[] sha1(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.aadi.userauth.security.password;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompositionRuleTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Aa1!aaaa", "Staple-Lantern-0rbit", "xY9?xY9?", "Ünïcode-P4ss"})
+    void acceptsPasswordsWithEveryCharacterClass(String password) {
+        assertThat(check(password)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "Aa1!aaa      | at least 8 characters",
+            "aa1!aaaa     | uppercase",
+            "AA1!AAAA     | lowercase",
+            "Aa!!aaaa     | digit",
+            "Aa11aaaa     | special character",
+            "Aa1 aaaa     | special character",
+    })
+    void reportsTheFirstMissingRequirement(String password, String message) {
+        assertThat(check(password)).hasValueSatisfying(violation -> assertThat(violation).contains(message));
+    }
+
+    private static Optional<String> check(String password) {
+        CompositionRule rule = new CompositionRule();
+        ReflectionTestUtils.setField(rule, "minPasswordLength", 8);
+        return rule.check(password, PasswordCharacteristics.of(password));
+    }
+}
@@ -0,0 +1,107 @@
+-- Size and probe latency of idx_rt_jti in the layout before refresh_tokens_uuid_jti.sql (varchar(64) jti) and
+-- after it (uuid jti), on the same generated tokens, plus the uuid index with the INCLUDE (user_id, revoked,
+-- expires_at) it carried until migration V2, to show what the included columns cost and what they did not buy.
+--
+-- Run against a scratch database, not a live one: psql -d <scratch> -f sql/refresh_tokens_jti_index.sql
+-- Everything lives in the jti_bench schema, which is dropped and recreated on each run.
+-- Latencies are measured inside the server with clock_timestamp(), so they exclude the network and the driver.
+
+\set ON_ERROR_STOP on
+
+DROP SCHEMA IF EXISTS jti_bench CASCADE;
+CREATE SCHEMA jti_bench;
+SET search_path = jti_bench;
+
+-- Tokens as the current schema stores them; 10M rows, a quarter of them revoked
+CREATE TABLE rt_uuid (
+    id                uuid                     NOT NULL PRIMARY KEY,
+    jti               uuid                     NOT NULL,
+    user_id           uuid                     NOT NULL,
+    created_at        timestamp with time zone NOT NULL,
+    expires_at        timestamp with time zone NOT NULL,
+    revoked           boolean                  NOT NULL,
+    replaced_by_token uuid
+);
+
+INSERT INTO rt_uuid
+SELECT gen_random_uuid(), gen_random_uuid(), gen_random_uuid(), now() - (i % 30) * interval '1 day',
+       now() + (30 - i % 30) * interval '1 day', i % 4 = 0, CASE WHEN i % 4 = 0 THEN gen_random_uuid() END
+  FROM generate_series(1, 10000000) AS i;
+
+-- The same tokens in the layout that ddl-auto: update created
+CREATE TABLE rt_text (
+    id                uuid                     NOT NULL PRIMARY KEY,
+    jti               varchar(64)              NOT NULL,
+    user_id           uuid                     NOT NULL,
+    created_at        timestamp with time zone NOT NULL,
+    expires_at        timestamp with time zone NOT NULL,
+    revoked           boolean                  NOT NULL,
+    replaced_by_token varchar(255)
+);
+
+INSERT INTO rt_text
+SELECT id, jti::text, user_id, created_at, expires_at, revoked, replaced_by_token::text FROM rt_uuid;
+
+CREATE UNIQUE INDEX rt_text_jti ON rt_text (jti);
+CREATE UNIQUE INDEX rt_uuid_jti_plain ON rt_uuid (jti);
+CREATE UNIQUE INDEX rt_uuid_jti ON rt_uuid (jti) INCLUDE (user_id, revoked, expires_at);
+
+-- Sets the visibility map, without which no scan can be index-only
+VACUUM ANALYZE rt_text;
+VACUUM ANALYZE rt_uuid;
+
+SELECT c.relname AS index, pg_size_pretty(pg_relation_size(c.oid)) AS size,
+       round(pg_relation_size(c.oid)::numeric / 10000000, 1) AS bytes_per_row
+  FROM pg_class c
+ WHERE c.relnamespace = 'jti_bench'::regnamespace AND c.relname IN ('rt_text_jti', 'rt_uuid_jti_plain', 'rt_uuid_jti')
+ ORDER BY 1;
+
+-- Probe keys: 100k existing tokens in random order
+CREATE TABLE probes AS SELECT jti FROM rt_uuid TABLESAMPLE SYSTEM (1) ORDER BY random() LIMIT 100000;
+
+CREATE TABLE timings (layout text, pass int, micros double precision);
+
+-- Each layout answers the lookup by jti that rotation and logout make. Both update the row they find, so the
+-- probe reads the whole row, as they do. The covering index is measured on its own by dropping the plain one for
+-- that run; the first pass over a layout only warms the cache.
+CREATE PROCEDURE probe(layout text, pass int) LANGUAGE plpgsql AS $$
+DECLARE
+    key uuid;
+    started timestamptz;
+    token record;
+BEGIN
+    FOR key IN SELECT jti FROM probes LOOP
+        started := clock_timestamp();
+        IF layout = 'varchar(64)' THEN
+            SELECT * INTO token FROM rt_text WHERE jti = key::text;
+        ELSE
+            SELECT * INTO token FROM rt_uuid WHERE jti = key;
+        END IF;
+        INSERT INTO timings VALUES (layout, pass, extract(epoch FROM clock_timestamp() - started) * 1e6);
+    END LOOP;
+END $$;
+
+CALL probe('varchar(64)', 1);
+CALL probe('varchar(64)', 2);
+DROP INDEX rt_uuid_jti;
+CALL probe('uuid', 1);
+CALL probe('uuid', 2);
+CREATE UNIQUE INDEX rt_uuid_jti ON rt_uuid (jti) INCLUDE (user_id, revoked, expires_at);
+DROP INDEX rt_uuid_jti_plain;
+CALL probe('uuid covering', 1);
+CALL probe('uuid covering', 2);
+
+SELECT layout,
+       round(avg(micros)::numeric, 1) AS avg_us,
+       round(percentile_cont(0.5) WITHIN GROUP (ORDER BY micros)::numeric, 1) AS p50_us,
+       round(percentile_cont(0.99) WITHIN GROUP (ORDER BY micros)::numeric, 1) AS p99_us
+  FROM timings
+ WHERE pass = 2
+ GROUP BY layout
+ ORDER BY layout;
+
+-- Plan and buffer use of one probe per layout
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF, TIMING OFF, SUMMARY OFF)
+SELECT * FROM rt_text WHERE jti = (SELECT jti::text FROM probes LIMIT 1);
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF, TIMING OFF, SUMMARY OFF)
+SELECT * FROM rt_uuid WHERE jti = (SELECT jti FROM probes LIMIT 1);
@@ -0,0 +1,208 @@
+-- Lookup, rotation and insert cost of refresh_tokens as one table (db/migration) and range-partitioned by
+-- expires_at (db/refresh_tokens_partitioned.sql, daily partitions), on the same generated tokens.
+--
+-- Run against a scratch database, not a live one: psql -d <scratch> -f sql/refresh_tokens_partitioned_bench.sql
+-- The default is 100M tokens, which needs roughly 40 GB of disk for the source and both layouts; pass
+-- -v rows=10000000 for a quicker run. Everything lives in the part_bench schema, dropped and recreated each run.
+-- Latencies are measured inside the server with clock_timestamp(), so they exclude the network and the driver.
+
+\set ON_ERROR_STOP on
+\if :{?rows}
+\else
+\set rows 100000000
+\endif
+
+DROP SCHEMA IF EXISTS part_bench CASCADE;
+CREATE SCHEMA part_bench;
+SET search_path = part_bench;
+
+-- Tokens expiring from 10 days ago to 30 days ahead: the expired ones are what the purge or a partition drop removes
+CREATE UNLOGGED TABLE tokens AS
+SELECT gen_random_uuid() AS id, gen_random_uuid() AS jti, gen_random_uuid() AS user_id, gen_random_uuid() AS session_id,
+       e - interval '30 days' AS created_at, e - interval '30 days' AS session_started_at, e AS expires_at,
+       i % 4 = 0 AS revoked
+  FROM generate_series(1, :rows) AS i,
+       LATERAL (SELECT now() - interval '10 days' + (i::double precision / :rows) * interval '40 days' AS e) t;
+
+-- The layout db/migration creates
+CREATE TABLE rt_single (
+    id                 uuid                        NOT NULL PRIMARY KEY,
+    jti                uuid                        NOT NULL,
+    user_id            uuid                        NOT NULL,
+    session_id         uuid                        NOT NULL DEFAULT gen_random_uuid(),
+    created_at         timestamp(6) with time zone NOT NULL DEFAULT now(),
+    session_started_at timestamp(6) with time zone DEFAULT now(),
+    expires_at         timestamp(6) with time zone NOT NULL,
+    revoked            boolean                     NOT NULL,
+    revoked_at         timestamp(6) with time zone,
+    replaced_by_token  uuid,
+    CONSTRAINT rt_single_jti UNIQUE (jti)
+);
+CREATE INDEX rt_single_user_created ON rt_single (user_id, created_at);
+CREATE INDEX rt_single_expiry ON rt_single (expires_at);
+CREATE INDEX rt_single_revoked ON rt_single (revoked_at) WHERE revoked_at IS NOT NULL;
+CREATE INDEX rt_single_session ON rt_single (session_id);
+
+-- The layout db/refresh_tokens_partitioned.sql creates, with daily partitions over the whole generated range
+CREATE TABLE rt_part (
+    id                 uuid                        NOT NULL,
+    jti                uuid                        NOT NULL,
+    user_id            uuid                        NOT NULL,
+    session_id         uuid                        NOT NULL DEFAULT gen_random_uuid(),
+    created_at         timestamp(6) with time zone NOT NULL DEFAULT now(),
+    session_started_at timestamp(6) with time zone DEFAULT now(),
+    expires_at         timestamp(6) with time zone NOT NULL,
+    revoked            boolean                     NOT NULL,
+    revoked_at         timestamp(6) with time zone,
+    replaced_by_token  uuid,
+    PRIMARY KEY (id, expires_at)
+) PARTITION BY RANGE (expires_at);
+CREATE UNIQUE INDEX rt_part_jti ON rt_part (jti, expires_at);
+CREATE INDEX rt_part_user_created ON rt_part (user_id, created_at);
+CREATE INDEX rt_part_expiry ON rt_part (expires_at);
+CREATE INDEX rt_part_revoked ON rt_part (revoked_at) WHERE revoked_at IS NOT NULL;
+CREATE INDEX rt_part_session ON rt_part (session_id);
+
+DO $$
+DECLARE
+    d date;
+BEGIN
+    FOR d IN SELECT generate_series((now() AT TIME ZONE 'UTC')::date - 11, (now() AT TIME ZONE 'UTC')::date + 32, interval '1 day')::date LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF rt_part FOR VALUES FROM (%L) TO (%L)',
+                       'rt_part_' || to_char(d, 'YYYYMMDD'),
+                       d::timestamp AT TIME ZONE 'UTC',
+                       (d + 1)::timestamp AT TIME ZONE 'UTC');
+    END LOOP;
+END $$;
+
+CREATE TABLE timings (layout text, probe text, pass int, micros double precision);
+CREATE TABLE loads (layout text, rows bigint, seconds double precision);
+
+-- Bulk insert path: every generated token into each layout, with all indexes in place
+CREATE PROCEDURE load(layout text) LANGUAGE plpgsql AS $$
+DECLARE
+    started timestamptz := clock_timestamp();
+    loaded bigint;
+BEGIN
+    EXECUTE format('INSERT INTO %I (id, jti, user_id, session_id, created_at, session_started_at, expires_at, revoked)
+                    SELECT id, jti, user_id, session_id, created_at, session_started_at, expires_at, revoked FROM tokens',
+                   layout);
+    GET DIAGNOSTICS loaded = ROW_COUNT;
+    COMMIT;
+    INSERT INTO loads VALUES (layout, loaded, extract(epoch FROM clock_timestamp() - started));
+END $$;
+
+CALL load('rt_single');
+CALL load('rt_part');
+
+VACUUM ANALYZE rt_single;
+VACUUM ANALYZE rt_part;
+
+-- Probe keys: 100k live tokens in random order, half of them for lookups, half to be rotated. The token presented
+-- states its expires_at (a JWT's exp, an opaque token's last four bytes), so each probe knows it too
+CREATE TABLE probes AS
+SELECT jti, expires_at, row_number() OVER () % 2 = 0 AS for_rotation
+  FROM (SELECT jti, expires_at FROM tokens TABLESAMPLE SYSTEM (least(100, 40000000.0 / :rows)) WHERE NOT revoked AND expires_at > now() + interval '1 hour'
+         ORDER BY random() LIMIT 100000) t;
+
+-- Lookup by jti alone, which probes the jti index of every partition, and by jti with the window around the
+-- presented expiry that RefreshTokenRepository uses, which the planner prunes to one partition (two at a day
+-- boundary). The first pass only warms the cache.
+CREATE PROCEDURE lookup(layout text, pass int) LANGUAGE plpgsql AS $$
+DECLARE
+    probe record;
+    started timestamptz;
+    token record;
+BEGIN
+    FOR probe IN SELECT jti, expires_at FROM probes WHERE NOT for_rotation LOOP
+        started := clock_timestamp();
+        EXECUTE format('SELECT * FROM %I WHERE jti = $1', layout) INTO token USING probe.jti;
+        INSERT INTO timings VALUES (layout, 'jti only', pass, extract(epoch FROM clock_timestamp() - started) * 1e6);
+        started := clock_timestamp();
+        EXECUTE format('SELECT * FROM %I WHERE jti = $1 AND expires_at BETWEEN $2 - interval ''2 seconds'' AND $2 + interval ''2 seconds''',
+                       layout) INTO token USING probe.jti, probe.expires_at;
+        INSERT INTO timings VALUES (layout, 'jti + expiry', pass, extract(epoch FROM clock_timestamp() - started) * 1e6);
+    END LOOP;
+END $$;
+
+-- RefreshTokenRepository.rotate, one commit per rotation as a refresh request does. Each token rotates once,
+-- so there is no warm-up pass; the lookup passes have already loaded the indexes.
+CREATE PROCEDURE rotate(layout text) LANGUAGE plpgsql AS $$
+DECLARE
+    probe record;
+    started timestamptz;
+BEGIN
+    FOR probe IN SELECT jti, expires_at FROM probes WHERE for_rotation LOOP
+        started := clock_timestamp();
+        EXECUTE format('
+            WITH rotated AS (
+                UPDATE %1$I
+                   SET revoked = true, revoked_at = now(), replaced_by_token = gen_random_uuid()
+                 WHERE jti = $1 AND expires_at BETWEEN $2 - interval ''2 seconds'' AND $2 + interval ''2 seconds''
+                   AND revoked = false AND expires_at > now()
+                RETURNING user_id, session_id, replaced_by_token, COALESCE(session_started_at, created_at) AS session_started_at
+            )
+            INSERT INTO %1$I (id, jti, user_id, session_id, created_at, session_started_at, expires_at, revoked)
+            SELECT gen_random_uuid(), replaced_by_token, user_id, session_id, now(), session_started_at,
+                   now() + interval ''30 days'', false
+              FROM rotated', layout) USING probe.jti, probe.expires_at;
+        COMMIT;
+        INSERT INTO timings VALUES (layout, 'rotate', 2, extract(epoch FROM clock_timestamp() - started) * 1e6);
+    END LOOP;
+    COMMIT;
+END $$;
+
+-- Single-row insert path: the INSERT RefreshTokenService.save issues at login, one commit each
+CREATE PROCEDURE issue(layout text, n int) LANGUAGE plpgsql AS $$
+DECLARE
+    started timestamptz;
+BEGIN
+    FOR i IN 1..n LOOP
+        started := clock_timestamp();
+        EXECUTE format('INSERT INTO %I (id, jti, user_id, session_id, created_at, session_started_at, expires_at, revoked)
+                        VALUES (gen_random_uuid(), gen_random_uuid(), gen_random_uuid(), gen_random_uuid(), now(), now(),
+                                now() + interval ''30 days'', false)', layout);
+        COMMIT;
+        INSERT INTO timings VALUES (layout, 'issue', 2, extract(epoch FROM clock_timestamp() - started) * 1e6);
+    END LOOP;
+    COMMIT;
+END $$;
+
+CALL lookup('rt_single', 1);
+CALL lookup('rt_single', 2);
+CALL lookup('rt_part', 1);
+CALL lookup('rt_part', 2);
+CALL rotate('rt_single');
+CALL rotate('rt_part');
+CALL issue('rt_single', 20000);
+CALL issue('rt_part', 20000);
+
+SELECT layout, rows, round(seconds::numeric, 1) AS seconds, round(rows / seconds) AS rows_per_sec
+  FROM loads
+ ORDER BY layout DESC;
+
+SELECT probe, layout,
+       count(*) AS n,
+       round(avg(micros)::numeric, 1) AS avg_us,
+       round(percentile_cont(0.5) WITHIN GROUP (ORDER BY micros)::numeric, 1) AS p50_us,
+       round(percentile_cont(0.99) WITHIN GROUP (ORDER BY micros)::numeric, 1) AS p99_us,
+       round(count(*) / (sum(micros) / 1e6)) AS per_sec
+  FROM timings
+ WHERE pass = 2
+ GROUP BY probe, layout
+ ORDER BY probe, layout DESC;
+
+SELECT 'rt_single' AS layout, pg_size_pretty(pg_total_relation_size('rt_single')) AS total_size
+UNION ALL
+SELECT 'rt_part', pg_size_pretty(sum(pg_total_relation_size(inhrelid))::bigint)
+  FROM pg_inherits WHERE inhparent = 'rt_part'::regclass;
+
+-- Plans of one probe on the partitioned layout: by jti alone it visits every partition's jti index, with the
+-- expiry window only the partition holding the row
+SELECT jti AS probe_jti, expires_at AS probe_expires_at FROM probes WHERE NOT for_rotation LIMIT 1 \gset
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF, TIMING OFF, SUMMARY OFF)
+SELECT * FROM rt_part WHERE jti = :'probe_jti';
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF, TIMING OFF, SUMMARY OFF)
+SELECT * FROM rt_part WHERE jti = :'probe_jti'
+   AND expires_at BETWEEN :'probe_expires_at'::timestamptz - interval '2 seconds'
+                      AND :'probe_expires_at'::timestamptz + interval '2 seconds';
@@ -0,0 +1,109 @@
+-- Latency of one refresh-token rotation before and after the single-statement rotate in RefreshTokenRepository.
+-- Before: the row was loaded by jti, checked in Java, saved revoked and its successor inserted, i.e. a SELECT,
+-- an UPDATE by id and an INSERT. After: one UPDATE ... RETURNING feeding the INSERT of the successor.
+--
+-- Run against a scratch database, not a live one: psql -d <scratch> -f sql/refresh_tokens_rotation.sql
+-- Everything lives in the rotate_bench schema, which is dropped and recreated on each run.
+-- Latencies are measured inside the server with clock_timestamp() and include the commit of each rotation, so
+-- they exclude the network and the driver. The old path also pays two more client round trips per rotation than
+-- the new one, which the "statements" column counts: add 2 x the application's database RTT to its figures.
+
+\set ON_ERROR_STOP on
+
+DROP SCHEMA IF EXISTS rotate_bench CASCADE;
+CREATE SCHEMA rotate_bench;
+SET search_path = rotate_bench;
+
+-- refresh_tokens as db/migration defines it; 1M live tokens of 200k users
+CREATE TABLE refresh_tokens (
+    id                 uuid                        NOT NULL PRIMARY KEY,
+    jti                uuid                        NOT NULL,
+    user_id            uuid                        NOT NULL,
+    session_id         uuid                        NOT NULL DEFAULT gen_random_uuid(),
+    created_at         timestamp(6) with time zone NOT NULL DEFAULT now(),
+    session_started_at timestamp(6) with time zone DEFAULT now(),
+    expires_at         timestamp(6) with time zone NOT NULL,
+    revoked            boolean                     NOT NULL,
+    revoked_at         timestamp(6) with time zone,
+    replaced_by_token  uuid,
+    CONSTRAINT idx_rt_jti UNIQUE (jti)
+);
+CREATE INDEX idx_rt_user_created ON refresh_tokens (user_id, created_at DESC, session_id DESC) WHERE NOT revoked;
+CREATE INDEX idx_rt_expiry ON refresh_tokens (expires_at);
+CREATE INDEX idx_rt_revoked ON refresh_tokens (revoked_at) WHERE revoked_at IS NOT NULL;
+CREATE INDEX idx_rt_session ON refresh_tokens (session_id);
+
+CREATE TABLE users (id uuid NOT NULL PRIMARY KEY);
+INSERT INTO users SELECT gen_random_uuid() FROM generate_series(1, 200000);
+
+INSERT INTO refresh_tokens (id, jti, user_id, created_at, session_started_at, expires_at, revoked)
+SELECT gen_random_uuid(), gen_random_uuid(), u.id, now() - (i % 30) * interval '1 day',
+       now() - (i % 30) * interval '1 day', now() + (30 - i % 30) * interval '1 day', false
+  FROM generate_series(1, 1000000) AS i
+  JOIN (SELECT id, row_number() OVER () AS n FROM users) u ON u.n = 1 + i % 200000;
+
+VACUUM ANALYZE refresh_tokens;
+
+-- Each path rotates its own 20k live tokens, in random order
+CREATE TABLE probes AS
+SELECT jti, CASE WHEN row_number() OVER () <= 20000 THEN 'before' ELSE 'after' END AS path
+  FROM (SELECT jti FROM refresh_tokens ORDER BY random() LIMIT 40000) t;
+
+CREATE TABLE timings (path text, micros double precision);
+
+CREATE PROCEDURE rotate(path text) LANGUAGE plpgsql AS $$
+DECLARE
+    key uuid;
+    started timestamptz;
+    row_id uuid;
+    owner uuid;
+    session uuid;
+    started_at timestamptz;
+    is_revoked boolean;
+    expiry timestamptz;
+    next_jti uuid;
+BEGIN
+    FOR key IN SELECT jti FROM probes p WHERE p.path = rotate.path LOOP
+        started := clock_timestamp();
+        next_jti := gen_random_uuid();
+        IF path = 'before' THEN
+            SELECT id, user_id, session_id, session_started_at, revoked, expires_at
+              INTO row_id, owner, session, started_at, is_revoked, expiry
+              FROM refresh_tokens WHERE jti = key;
+            IF NOT is_revoked AND expiry > now() THEN
+                UPDATE refresh_tokens SET revoked = true, revoked_at = now(), replaced_by_token = next_jti
+                 WHERE id = row_id;
+                INSERT INTO refresh_tokens (id, jti, user_id, session_id, session_started_at, expires_at, revoked)
+                VALUES (gen_random_uuid(), next_jti, owner, session, started_at, now() + interval '30 days', false);
+            END IF;
+        ELSE
+            WITH rotated AS (
+                UPDATE refresh_tokens
+                   SET revoked = true, revoked_at = now(), replaced_by_token = next_jti
+                 WHERE jti = key AND revoked = false AND expires_at > now()
+                RETURNING user_id, session_id, COALESCE(session_started_at, created_at) AS session_started_at
+            )
+            INSERT INTO refresh_tokens (id, jti, user_id, session_id, created_at, session_started_at, expires_at, revoked)
+            SELECT gen_random_uuid(), next_jti, user_id, session_id, now(), session_started_at,
+                   now() + interval '30 days', false
+              FROM rotated;
+        END IF;
+        COMMIT;
+        INSERT INTO timings VALUES (path, extract(epoch FROM clock_timestamp() - started) * 1e6);
+    END LOOP;
+    COMMIT;
+END $$;
+
+-- Each rotation commits on its own, as a refresh request does
+CALL rotate('before');
+CALL rotate('after');
+
+SELECT path,
+       CASE path WHEN 'before' THEN 3 ELSE 1 END AS statements,
+       count(*) AS rotations,
+       round(avg(micros)::numeric, 1) AS avg_us,
+       round(percentile_cont(0.5) WITHIN GROUP (ORDER BY micros)::numeric, 1) AS p50_us,
+       round(percentile_cont(0.99) WITHIN GROUP (ORDER BY micros)::numeric, 1) AS p99_us
+  FROM timings
+ GROUP BY path
+ ORDER BY path DESC;
@@ -0,0 +1,116 @@
+-- Registration throughput before and after the single-flush register path in AuthService.
+-- Before: an existsByEmail SELECT, a DELETE of earlier OTPs, the user INSERT, the OTP INSERT, the outbox INSERT
+-- and an UPDATE that disabled the user again. After: the user, OTP and outbox INSERTs of one flush, with the
+-- unique index on users.email deciding duplicates.
+--
+-- Run against a scratch database, not a live one: psql -d <scratch> -f sql/register_throughput.sql
+-- Everything lives in the register_bench schema, which is dropped and recreated on each run.
+-- Each registration commits on its own. Latencies are measured inside the server with clock_timestamp(), so they
+-- exclude password hashing, which both paths do alike, and the client round trip each statement costs: add
+-- "statements" x the application's database RTT per registration to compare with an application-level figure.
+
+\set ON_ERROR_STOP on
+
+DROP SCHEMA IF EXISTS register_bench CASCADE;
+CREATE SCHEMA register_bench;
+SET search_path = register_bench;
+
+-- users, otps and email_outbox as db/migration defines them, with 1M existing users and their OTPs
+CREATE TABLE users (
+    id          uuid                        NOT NULL PRIMARY KEY,
+    provider_id varchar(255),
+    email       varchar(255)                NOT NULL UNIQUE,
+    name        varchar(255),
+    password    varchar(255),
+    image       varchar(255),
+    mobile      varchar(255),
+    enabled     boolean                     NOT NULL,
+    created_at  timestamp(6) with time zone,
+    updated_at  timestamp(6) with time zone,
+    provider    varchar(255) CHECK (provider IN ('LOCAL', 'GOOGLE', 'GITHUB'))
+);
+
+CREATE TABLE otps (
+    id         uuid                        NOT NULL PRIMARY KEY,
+    email      varchar(255)                NOT NULL,
+    code       varchar(6)                  NOT NULL,
+    type       varchar(255)                NOT NULL CHECK (type IN ('REGISTER', 'RESET')),
+    expires_at timestamp(6) with time zone NOT NULL,
+    used       boolean                     NOT NULL
+);
+CREATE INDEX idx_otp_email_type ON otps (email, type);
+CREATE INDEX idx_otp_expiry ON otps (expires_at);
+
+CREATE TABLE email_outbox (
+    id              uuid                        NOT NULL PRIMARY KEY,
+    recipient       varchar(255)                NOT NULL,
+    subject         varchar(255)                NOT NULL,
+    body            text                        NOT NULL,
+    status          varchar(16)                 NOT NULL CHECK (status IN ('PENDING', 'FAILED')),
+    attempts        integer                     NOT NULL,
+    next_attempt_at timestamp(6) with time zone NOT NULL,
+    created_at      timestamp(6) with time zone NOT NULL,
+    last_error      varchar(500)
+);
+CREATE INDEX idx_outbox_due ON email_outbox (status, next_attempt_at);
+
+-- A bcrypt hash is 60 characters; its content does not matter here
+INSERT INTO users (id, email, name, password, enabled, created_at, updated_at, provider)
+SELECT gen_random_uuid(), 'existing-' || i || '@example.test', 'Existing', repeat('x', 60), true, now(), now(), 'LOCAL'
+  FROM generate_series(1, 1000000) AS i;
+INSERT INTO otps (id, email, code, type, expires_at, used)
+SELECT gen_random_uuid(), 'existing-' || i || '@example.test', '123456', 'REGISTER', now() - interval '1 day', true
+  FROM generate_series(1, 1000000) AS i;
+
+VACUUM ANALYZE users;
+VACUUM ANALYZE otps;
+
+CREATE TABLE timings (path text, micros double precision);
+
+CREATE PROCEDURE register(path text, n int) LANGUAGE plpgsql AS $$
+DECLARE
+    started timestamptz;
+    address text;
+    user_id uuid;
+BEGIN
+    FOR i IN 1..n LOOP
+        started := clock_timestamp();
+        address := path || '-' || i || '@example.test';
+        user_id := gen_random_uuid();
+        IF path = 'before' THEN
+            IF NOT EXISTS (SELECT 1 FROM users WHERE email = address) THEN
+                DELETE FROM otps WHERE email = address AND type = 'REGISTER';
+                INSERT INTO users (id, email, name, password, enabled, created_at, updated_at, provider)
+                VALUES (user_id, address, 'Register Bench', repeat('x', 60), true, now(), now(), 'LOCAL');
+                INSERT INTO otps (id, email, code, type, expires_at, used)
+                VALUES (gen_random_uuid(), address, '123456', 'REGISTER', now() + interval '10 minutes', false);
+                INSERT INTO email_outbox (id, recipient, subject, body, status, attempts, next_attempt_at, created_at)
+                VALUES (gen_random_uuid(), address, 'Your verification code', 'Your code is 123456', 'PENDING', 0, now(), now());
+                UPDATE users SET enabled = false, updated_at = now() WHERE id = user_id;
+            END IF;
+        ELSE
+            INSERT INTO users (id, email, name, password, enabled, created_at, updated_at, provider)
+            VALUES (user_id, address, 'Register Bench', repeat('x', 60), false, now(), now(), 'LOCAL');
+            INSERT INTO otps (id, email, code, type, expires_at, used)
+            VALUES (gen_random_uuid(), address, '123456', 'REGISTER', now() + interval '10 minutes', false);
+            INSERT INTO email_outbox (id, recipient, subject, body, status, attempts, next_attempt_at, created_at)
+            VALUES (gen_random_uuid(), address, 'Your verification code', 'Your code is 123456', 'PENDING', 0, now(), now());
+        END IF;
+        COMMIT;
+        INSERT INTO timings VALUES (path, extract(epoch FROM clock_timestamp() - started) * 1e6);
+    END LOOP;
+    COMMIT;
+END $$;
+
+CALL register('before', 50000);
+CALL register('after', 50000);
+
+SELECT path,
+       CASE path WHEN 'before' THEN 6 ELSE 3 END AS statements,
+       count(*) AS registrations,
+       round(count(*) / (sum(micros) / 1e6)) AS per_sec,
+       round(percentile_cont(0.5) WITHIN GROUP (ORDER BY micros)::numeric, 1) AS p50_us,
+       round(percentile_cont(0.99) WITHIN GROUP (ORDER BY micros)::numeric, 1) AS p99_us
+  FROM timings
+ GROUP BY path
+ ORDER BY path DESC;
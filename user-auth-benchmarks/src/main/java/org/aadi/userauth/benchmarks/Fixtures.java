@@ -0,0 +1,72 @@
+package org.aadi.userauth.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aadi.userauth.auth.model.Role;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.auth.repository.UserRepository;
+import org.aadi.userauth.security.JwtService;
+import org.aadi.userauth.security.PrincipalCache;
+import org.aadi.userauth.security.SigningKeyRing;
+import org.aadi.userauth.security.TokenEpochRegistry;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Builds the backend components the way Spring would, without starting a context or a database.
+ */
+final class Fixtures {
+
+    static final String SECRET = "9f5c7ab12e0d8bcf3a1e76cd04f9b82c6ef13b02ff56a7c91d9c4b45e60bd8a1";
+    static final long ACCESS_TTL_SECONDS = 300;
+    static final long REFRESH_TTL_SECONDS = 2592000;
+
+    private Fixtures() {
+    }
+
+    static JwtService jwtService(String hmacAlgorithm, TokenEpochRegistry tokenEpochs) {
+        return new JwtService(SECRET, ACCESS_TTL_SECONDS, REFRESH_TTL_SECONDS, "user-auth-backend", hmacAlgorithm,
+                tokenEpochs, new SigningKeyRing(null, "HS512", SECRET, ACCESS_TTL_SECONDS,
+                        Duration.ofHours(24), Duration.ofMinutes(1)));
+    }
+
+    /** A user with {@code roleCount} roles; role count is what drives access token claim size. */
+    static User user(int roleCount) {
+        Set<Role> roles = new HashSet<>();
+        for (int i = 0; i < roleCount; i++) {
+            roles.add(Role.builder().name(i == 0 ? "USER" : "PERMISSION_" + i).build());
+        }
+        return User.builder()
+                .id(UUID.randomUUID())
+                .email("bench.user@example.com")
+                .name("Bench User")
+                // bcrypt hash of "Password1!" at cost 10
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BdlsCDXYkUr9cSvkP.0X3ZkJ5o5e")
+                .enabled(true)
+                .roles(roles)
+                .build();
+    }
+
+    /** Repository stub that answers every lookup with {@code user}, standing in for Postgres. */
+    static UserRepository userRepository(User user) {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById", "findByEmail" -> Optional.of(user);
+                    case "existsByEmail" -> true;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "UserRepositoryStub";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static PrincipalCache principalCache(UserRepository repository, long maxSize) {
+        return new PrincipalCache(repository, new SimpleMeterRegistry(), maxSize, 600);
+    }
+}
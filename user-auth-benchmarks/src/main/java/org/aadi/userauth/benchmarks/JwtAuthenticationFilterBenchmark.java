@@ -0,0 +1,72 @@
+package org.aadi.userauth.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.security.AccessTokenRevocationList;
+import org.aadi.userauth.security.JwtAuthenticationFilter;
+import org.aadi.userauth.security.JwtService;
+import org.aadi.userauth.security.TokenEpochRegistry;
+import org.aadi.userauth.security.VerifiedTokenCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One bearer-authenticated request through {@link JwtAuthenticationFilter}, with the user repository stubbed.
+ * {@code principalCacheSize=0} approximates a cache miss (repository call) on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean claimsOnlyAuth;
+
+    @Param({"false", "true"})
+    public boolean tokenCacheEnabled;
+
+    @Param({"0", "10000"})
+    public long principalCacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setup() {
+        TokenEpochRegistry tokenEpochs = new TokenEpochRegistry(Fixtures.ACCESS_TTL_SECONDS);
+        JwtService jwtService = Fixtures.jwtService("HS512", tokenEpochs);
+        User user = Fixtures.user(1);
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(jwtService, new SimpleMeterRegistry(),
+                tokenCacheEnabled, 10_000, Fixtures.ACCESS_TTL_SECONDS);
+        AccessTokenRevocationList revocations = new AccessTokenRevocationList(tokenEpochs,
+                Fixtures.ACCESS_TTL_SECONDS, 100_000, 0.01, "");
+        filter = new JwtAuthenticationFilter(tokenCache, tokenEpochs, revocations,
+                Fixtures.principalCache(Fixtures.userRepository(user), principalCacheSize));
+        ReflectionTestUtils.setField(filter, "claimsOnlyAuth", claimsOnlyAuth);
+        authorization = "Bearer " + jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public int authenticateBearerRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/auth/me");
+        request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+            return response.getStatus();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.aadi.userauth.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.security.JwtService;
+import org.aadi.userauth.security.TokenEpochRegistry;
+import org.aadi.userauth.security.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generation and verification throughput across HMAC algorithms and access token claim sizes.
+ * <p>
+ * {@code refreshPathSingleVerify} and {@code refreshPathPerClaimVerify} compare the refresh endpoint's token
+ * handling with one {@link JwtService#verify} call against the previous four separate parses (type check,
+ * jti, subject and the bearer-header probe).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    @Param({"HS256", "HS512"})
+    public String algorithm;
+
+    @Param({"1", "25"})
+    public int roleCount;
+
+    private JwtService jwtService;
+    private User user;
+    private Instant refreshExpiresAt;
+    private String accessToken;
+    private String refreshToken;
+
+    @Setup
+    public void setup() {
+        jwtService = Fixtures.jwtService(algorithm, new TokenEpochRegistry(Fixtures.ACCESS_TTL_SECONDS));
+        user = Fixtures.user(roleCount);
+        accessToken = jwtService.generateAccessToken(user);
+        refreshExpiresAt = Instant.now().plusSeconds(Fixtures.REFRESH_TTL_SECONDS).truncatedTo(ChronoUnit.SECONDS);
+        refreshToken = jwtService.generateRefreshToken(user.getId(), UUID.randomUUID().toString(), refreshExpiresAt);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return jwtService.generateRefreshToken(user.getId(), "0b7c0f8e-3f0c-4d3c-9d7a-2f3c5b8e1a90", refreshExpiresAt);
+    }
+
+    @Benchmark
+    public Jws<Claims> parseAccessToken() {
+        return jwtService.parse(accessToken);
+    }
+
+    @Benchmark
+    public VerifiedToken refreshPathSingleVerify() {
+        return jwtService.verify(refreshToken);
+    }
+
+    @Benchmark
+    public void refreshPathPerClaimVerify(Blackhole bh) {
+        bh.consume(jwtService.parse(refreshToken).getBody().get("typ"));
+        bh.consume(jwtService.parse(refreshToken).getBody().get("typ"));
+        bh.consume(jwtService.parse(refreshToken).getBody().getId());
+        bh.consume(jwtService.parse(refreshToken).getBody().getSubject());
+    }
+}
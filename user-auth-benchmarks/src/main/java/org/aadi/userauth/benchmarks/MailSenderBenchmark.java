@@ -0,0 +1,83 @@
+package org.aadi.userauth.benchmarks;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import org.aadi.userauth.auth.service.mail.PooledJavaMailSender;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends to an in-process GreenMail SMTP server through Spring's per-send {@link JavaMailSenderImpl} and through
+ * {@link PooledJavaMailSender}, one message per call and in batches of 50 as the outbox worker does.
+ * <p>
+ * The server is on loopback without TLS or AUTH, so the per-connection cost measured here is only the TCP
+ * connect, greeting, EHLO and QUIT; against a real provider every connection adds STARTTLS, a second EHLO and
+ * AUTH, each a network round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MailSenderBenchmark {
+
+    private static final int BATCH = 50;
+
+    @Param({"plain", "pooled"})
+    public String sender;
+
+    private GreenMail smtp;
+    private JavaMailSenderImpl mailSender;
+    private SimpleMailMessage message;
+    private SimpleMailMessage[] batch;
+
+    @Setup
+    public void setup() {
+        smtp = new GreenMail(new ServerSetup(0, "127.0.0.1", ServerSetup.PROTOCOL_SMTP));
+        smtp.start();
+        mailSender = "pooled".equals(sender)
+                // The application's defaults, unpaced so the benchmark measures the connection handling
+                ? new PooledJavaMailSender(1, 100, Duration.ofSeconds(30), Duration.ofSeconds(30), 0)
+                : new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.getSmtp().getPort());
+        message = new SimpleMailMessage();
+        message.setFrom("noreply@example.test");
+        message.setTo("user@example.test");
+        message.setSubject("Your verification code");
+        message.setText("Your code is 123456. It expires in 10 minutes.");
+        batch = new SimpleMailMessage[BATCH];
+        Arrays.fill(batch, message);
+    }
+
+    /** GreenMail keeps every message it receives; drop them so the heap stays flat across iterations. */
+    @TearDown(Level.Iteration)
+    public void purge() throws Exception {
+        smtp.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (mailSender instanceof PooledJavaMailSender pooled) {
+            pooled.destroy();
+        }
+        smtp.stop();
+    }
+
+    @Benchmark
+    public void sendOne() {
+        mailSender.send(message);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void sendBatch() {
+        mailSender.send(batch);
+    }
+}
@@ -0,0 +1,40 @@
+package org.aadi.userauth.benchmarks;
+
+import org.aadi.userauth.auth.model.User;
+import org.aadi.userauth.security.CustomUserDetailsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CustomUserDetailsService#loadUserByUsername} with the repository stubbed, i.e. the authority mapping
+ * cost that the login path adds on top of the users query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsServiceBenchmark {
+
+    @Param({"1", "25"})
+    public int roleCount;
+
+    private CustomUserDetailsService userDetailsService;
+    private String email;
+
+    @Setup
+    public void setup() {
+        User user = Fixtures.user(roleCount);
+        var repository = Fixtures.userRepository(user);
+        userDetailsService = new CustomUserDetailsService(repository);
+        email = user.getEmail();
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername(email);
+    }
+}